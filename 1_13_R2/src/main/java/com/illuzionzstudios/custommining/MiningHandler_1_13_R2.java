@@ -1,5 +1,6 @@
 package com.illuzionzstudios.custommining;
 
+import io.netty.channel.Channel;
 import net.minecraft.server.v1_13_R2.*;
 import org.bukkit.block.Block;
 import org.bukkit.craftbukkit.v1_13_R2.entity.CraftPlayer;
@@ -11,12 +12,26 @@ import java.util.List;
 
 public class MiningHandler_1_13_R2 implements MiningHandler {
 
+    /**
+     * Precomputed hardness and tool speeds
+     */
+    private MaterialTables tables;
+
+    @Override
+    public void loadTables() {
+        // Tool speeds aren't handled on this version yet so only hardness is filled
+        this.tables = MaterialTables.build(
+                material -> material.isBlock() && !material.isLegacy(),
+                material -> false,
+                org.bukkit.Material.AIR,
+                material -> CraftMagicNumbers.getBlock(material).strength,
+                (item, block) -> 0,
+                (item, block) -> false);
+    }
+
     @Override
     public void sendBlockBreak(org.bukkit.block.Block block, int damage, Player... players) {
-        // Generate unique id based off location
-        String idString = String.valueOf(block.getX()) + block.getY() + block.getZ();
-        int id = Integer.parseInt(idString);
-        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(id, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(getBlockEntityId(block), new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
 
         for (Player player : players) {
             ((CraftPlayer) player).getHandle().playerConnection.sendPacket(breakBlockPacket);
@@ -25,16 +40,28 @@ public class MiningHandler_1_13_R2 implements MiningHandler {
 
     @Override
     public void sendBlockBreak(org.bukkit.block.Block block, int damage, List<Player> players) {
-        // Generate unique id based off location
-        String idString = String.valueOf(Math.abs(block.getX())) + Math.abs(block.getY()) + Math.abs(block.getZ());
-        int id = Integer.parseInt(idString);
-        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(id, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(getBlockEntityId(block), new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
 
         for (Player player : players) {
             ((CraftPlayer) player).getHandle().playerConnection.sendPacket(breakBlockPacket);
         }
     }
 
+    @Override
+    public Object createBlockBreak(int breakerId, org.bukkit.block.Block block, int damage) {
+        return new PacketPlayOutBlockBreakAnimation(breakerId, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+    }
+
+    @Override
+    public Channel getChannel(Player player) {
+        return ((CraftPlayer) player).getHandle().playerConnection.networkManager.channel;
+    }
+
+    @Override
+    public DigInterceptor.DigReader getDigReader() {
+        return MiningHandler_1_13_R2::readDig;
+    }
+
     @Override
     public void cancelClientBreaking(Player player) {
         PacketPlayOutEntityEffect eff = new PacketPlayOutEntityEffect(player.getEntityId(), new MobEffect(MobEffectList.fromId(4), 255, Integer.MAX_VALUE, true, true));
@@ -43,7 +70,7 @@ public class MiningHandler_1_13_R2 implements MiningHandler {
 
     @Override
     public float getDefaultBlockHardness(org.bukkit.block.Block block) {
-        return CraftMagicNumbers.getBlock(block.getType()).strength;
+        return tables.getHardness(block.getType());
     }
 
     @Override
@@ -62,6 +89,32 @@ public class MiningHandler_1_13_R2 implements MiningHandler {
     }
 
     @Override
-    public void playBreakEffect(org.bukkit.block.Block block) {
+    public void playBreakEffect(org.bukkit.block.Block block, int particles) {
+    }
+
+    /**
+     * Hand a dig packet read by the {@link DigInterceptor} to the listener
+     */
+    private static void readDig(Object packet, Player player, DigListener listener) {
+        if (!(packet instanceof PacketPlayInBlockDig dig)) return;
+
+        int type = getDigType(dig.d());
+        if (type != -1) {
+            BlockPosition position = dig.b();
+            listener.onDig(player, type, position.getX(), position.getY(), position.getZ());
+        }
+    }
+
+    private static int getDigType(PacketPlayInBlockDig.EnumPlayerDigType type) {
+        switch (type) {
+            case START_DESTROY_BLOCK:
+                return DigListener.START;
+            case ABORT_DESTROY_BLOCK:
+                return DigListener.ABORT;
+            case STOP_DESTROY_BLOCK:
+                return DigListener.STOP;
+            default:
+                return -1;
+        }
     }
 }
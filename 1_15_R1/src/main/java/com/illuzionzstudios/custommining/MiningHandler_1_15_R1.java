@@ -1,5 +1,6 @@
 package com.illuzionzstudios.custommining;
 
+import io.netty.channel.Channel;
 import net.minecraft.server.v1_15_R1.*;
 import org.bukkit.Effect;
 import org.bukkit.Material;
@@ -13,12 +14,26 @@ import java.util.List;
 
 public class MiningHandler_1_15_R1 implements MiningHandler {
 
+    /**
+     * Precomputed hardness and tool speeds
+     */
+    private MaterialTables tables;
+
+    @Override
+    public void loadTables() {
+        // Tool speeds aren't handled on this version yet so only hardness is filled
+        this.tables = MaterialTables.build(
+                material -> material.isBlock() && !material.isLegacy(),
+                material -> false,
+                org.bukkit.Material.AIR,
+                material -> CraftMagicNumbers.getBlock(material).strength,
+                (item, block) -> 0,
+                (item, block) -> false);
+    }
+
     @Override
     public void sendBlockBreak(org.bukkit.block.Block block, int damage, Player... players) {
-        // Generate unique id based off location
-        String idString = String.valueOf(block.getX()) + block.getY() + block.getZ();
-        int id = Integer.parseInt(idString);
-        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(id, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(getBlockEntityId(block), new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
 
         for (Player player : players) {
             ((CraftPlayer) player).getHandle().playerConnection.sendPacket(breakBlockPacket);
@@ -27,16 +42,28 @@ public class MiningHandler_1_15_R1 implements MiningHandler {
 
     @Override
     public void sendBlockBreak(org.bukkit.block.Block block, int damage, List<Player> players) {
-        // Generate unique id based off location
-        String idString = String.valueOf(Math.abs(block.getX())) + Math.abs(block.getY()) + Math.abs(block.getZ());
-        int id = Integer.parseInt(idString);
-        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(id, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+        PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(getBlockEntityId(block), new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
 
         for (Player player : players) {
             ((CraftPlayer) player).getHandle().playerConnection.sendPacket(breakBlockPacket);
         }
     }
 
+    @Override
+    public Object createBlockBreak(int breakerId, org.bukkit.block.Block block, int damage) {
+        return new PacketPlayOutBlockBreakAnimation(breakerId, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+    }
+
+    @Override
+    public Channel getChannel(Player player) {
+        return ((CraftPlayer) player).getHandle().playerConnection.networkManager.channel;
+    }
+
+    @Override
+    public DigInterceptor.DigReader getDigReader() {
+        return MiningHandler_1_15_R1::readDig;
+    }
+
     @Override
     public void cancelClientBreaking(Player player) {
         PacketPlayOutEntityEffect eff = new PacketPlayOutEntityEffect(player.getEntityId(), new MobEffect(MobEffectList.fromId(4), 255, Integer.MAX_VALUE, true, true));
@@ -45,7 +72,7 @@ public class MiningHandler_1_15_R1 implements MiningHandler {
 
     @Override
     public float getDefaultBlockHardness(org.bukkit.block.Block block) {
-        return CraftMagicNumbers.getBlock(block.getType()).strength;
+        return tables.getHardness(block.getType());
     }
 
     @Override
@@ -64,7 +91,7 @@ public class MiningHandler_1_15_R1 implements MiningHandler {
     }
 
     @Override
-    public void playBreakEffect(org.bukkit.block.Block block) {
+    public void playBreakEffect(org.bukkit.block.Block block, int particles) {
 //        block.getWorld().spawnParticle(Particle.BLOCK_CRACK, block.getLocation().add(0.5, 0.5, 0.5),
 //                new Random().nextInt(20) + 10,
 //                0.25, 0.25, 0.25, Material.BEDROCK.createBlockData());
@@ -79,4 +106,30 @@ public class MiningHandler_1_15_R1 implements MiningHandler {
 //                break;
 //        }
     }
+
+    /**
+     * Hand a dig packet read by the {@link DigInterceptor} to the listener
+     */
+    private static void readDig(Object packet, Player player, DigListener listener) {
+        if (!(packet instanceof PacketPlayInBlockDig dig)) return;
+
+        int type = getDigType(dig.d());
+        if (type != -1) {
+            BlockPosition position = dig.b();
+            listener.onDig(player, type, position.getX(), position.getY(), position.getZ());
+        }
+    }
+
+    private static int getDigType(PacketPlayInBlockDig.EnumPlayerDigType type) {
+        switch (type) {
+            case START_DESTROY_BLOCK:
+                return DigListener.START;
+            case ABORT_DESTROY_BLOCK:
+                return DigListener.ABORT;
+            case STOP_DESTROY_BLOCK:
+                return DigListener.STOP;
+            default:
+                return -1;
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package com.illuzionzstudios.custommining;
 
+import io.netty.channel.Channel;
 import net.minecraft.core.BlockPosition;
+import net.minecraft.network.protocol.game.PacketPlayInBlockDig;
 import net.minecraft.network.protocol.game.PacketPlayOutBlockBreakAnimation;
 import net.minecraft.network.protocol.game.PacketPlayOutEntityEffect;
 import net.minecraft.resources.MinecraftKey;
@@ -11,6 +13,7 @@ import net.minecraft.world.entity.EntityExperienceOrb;
 import net.minecraft.world.level.block.SoundEffectType;
 import net.minecraft.world.level.block.state.BlockBase;
 import net.minecraft.world.level.block.state.IBlockData;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.Sound;
@@ -31,6 +34,52 @@ import java.util.List;
 
 public class MiningHandler_1_17_R1 implements MiningHandler {
 
+    /**
+     * Precomputed hardness and tool speeds
+     */
+    private MaterialTables tables;
+
+    @Override
+    public void loadTables() {
+        // We have to go into block info to get hardness
+        Field info;
+        Field strengthField;
+        try {
+            info = BlockBase.class.getDeclaredField("aP");
+            info.setAccessible(true);
+            strengthField = BlockBase.Info.class.getDeclaredField("g");
+            strengthField.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            // Still build the tables so lookups never fail, just with nothing breakable
+            Bukkit.getLogger().severe("[CustomMining] Couldn't find block hardness on this server build, every block will be unbreakable: " + e.getMessage());
+            info = null;
+            strengthField = null;
+        }
+
+        Field finalInfo = info;
+        Field finalStrength = strengthField;
+        this.tables = MaterialTables.build(
+                material -> material.isBlock() && !material.isLegacy(),
+                material -> material.isItem() && !material.isLegacy(),
+                Material.AIR,
+                material -> {
+                    if (finalInfo == null) return -1f;
+
+                    try {
+                        BlockBase.Info blockInfo = (BlockBase.Info) finalInfo.get(CraftMagicNumbers.getBlock(material));
+                        return (float) finalStrength.get(blockInfo);
+                    } catch (IllegalAccessException e) {
+                        // Couldn't get hardness so it's unbreakable
+                        return -1f;
+                    }
+                },
+                (item, block) -> {
+                    net.minecraft.world.item.Item nmsItem = CraftMagicNumbers.getItem(item);
+                    return nmsItem.getDestroySpeed(nmsItem.createItemStack(), CraftMagicNumbers.getBlock(block).getBlockData());
+                },
+                (item, block) -> CraftMagicNumbers.getItem(item).canDestroySpecialBlock(CraftMagicNumbers.getBlock(block).getBlockData()));
+    }
+
     @Override
     public void sendBlockBreak(org.bukkit.block.Block block, int damage, Player... players) {
         PacketPlayOutBlockBreakAnimation breakBlockPacket = new PacketPlayOutBlockBreakAnimation(getBlockEntityId(block), new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
@@ -49,6 +98,21 @@ public class MiningHandler_1_17_R1 implements MiningHandler {
         }
     }
 
+    @Override
+    public Object createBlockBreak(int breakerId, org.bukkit.block.Block block, int damage) {
+        return new PacketPlayOutBlockBreakAnimation(breakerId, new BlockPosition(block.getX(), block.getY(), block.getZ()), damage);
+    }
+
+    @Override
+    public Channel getChannel(Player player) {
+        return ((CraftPlayer) player).getHandle().b.a.k;
+    }
+
+    @Override
+    public DigInterceptor.DigReader getDigReader() {
+        return MiningHandler_1_17_R1::readDig;
+    }
+
     @Override
     public void cancelClientBreaking(Player player) {
         PacketPlayOutEntityEffect eff = new PacketPlayOutEntityEffect(player.getEntityId(), new MobEffect(MobEffectList.fromId(4), 255, Integer.MAX_VALUE, true, false));
@@ -57,21 +121,7 @@ public class MiningHandler_1_17_R1 implements MiningHandler {
 
     @Override
     public float getDefaultBlockHardness(org.bukkit.block.Block block) {
-        // We have to go into block info to get hardness
-        try {
-            Field info = BlockBase.class.getDeclaredField("aP");
-            info.setAccessible(true);
-            BlockBase.Info blockInfo = (BlockBase.Info) info.get(((CraftBlock) block).getNMS().getBlock());
-
-            Field strengthField = BlockBase.Info.class.getDeclaredField("g");
-            strengthField.setAccessible(true);
-            float strength = (float) strengthField.get(blockInfo);
-            return strength;
-        } catch (Exception e){
-            e.printStackTrace();
-        }
-        // Couldn't get hardness so it's unbreakable
-        return -1f;
+        return tables.getHardness(block.getType());
     }
 
     @Override
@@ -88,22 +138,23 @@ public class MiningHandler_1_17_R1 implements MiningHandler {
 
     @Override
     public float getBaseMultiplier(ItemStack item, Block block) {
-        return CraftMagicNumbers.getItem(item.getType()).getDestroySpeed(CraftMagicNumbers.getItem(item.getType()).createItemStack(), CraftMagicNumbers.getBlock(block.getType()).getBlockData());
+        return tables.getDestroySpeed(item.getType(), block.getType());
     }
 
     @Override
     public boolean canDestroyBlock(ItemStack item, Block block) {
-        return CraftMagicNumbers.getItem(item.getType()).canDestroySpecialBlock(CraftMagicNumbers.getBlock(block.getType()).getBlockData());
+        return tables.canHarvest(item.getType(), block.getType());
     }
 
     @Override
-    public void playBreakEffect(org.bukkit.block.Block block) {
+    public void playBreakEffect(org.bukkit.block.Block block, int particles) {
         // Will produce weird effects
         if (block.getType() == Material.AIR) return;
 
-        block.getWorld().spawnParticle(Particle.BLOCK_CRACK, block.getLocation().add(0.5, 0.5, 0.5),
-                50,
-                0.3, 0.3, 0.3, block.getBlockData());
+        if (particles > 0)
+            block.getWorld().spawnParticle(Particle.BLOCK_CRACK, block.getLocation().add(0.5, 0.5, 0.5),
+                    particles,
+                    0.3, 0.3, 0.3, block.getBlockData());
 
         try {
             IBlockData nmsBlock = ((CraftBlock) block).getNMS();
@@ -122,4 +173,29 @@ public class MiningHandler_1_17_R1 implements MiningHandler {
         }
     }
 
+    /**
+     * Hand a dig packet read by the {@link DigInterceptor} to the listener
+     */
+    private static void readDig(Object packet, Player player, DigListener listener) {
+        if (!(packet instanceof PacketPlayInBlockDig dig)) return;
+
+        int type = getDigType(dig.d());
+        if (type != -1) {
+            BlockPosition position = dig.b();
+            listener.onDig(player, type, position.getX(), position.getY(), position.getZ());
+        }
+    }
+
+    private static int getDigType(PacketPlayInBlockDig.EnumPlayerDigType type) {
+        switch (type) {
+            case START_DESTROY_BLOCK:
+                return DigListener.START;
+            case ABORT_DESTROY_BLOCK:
+                return DigListener.ABORT;
+            case STOP_DESTROY_BLOCK:
+                return DigListener.STOP;
+            default:
+                return -1;
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.MiningController;
+import com.illuzionzstudios.custommining.controller.ViewerController;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of fanning out a tick's worth of break animations
+ * to every player that can see them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+
+    /**
+     * Players standing around the blocks
+     */
+    @Param({"1", "50", "200"})
+    public int viewers;
+
+    /**
+     * Blocks changing stage each tick
+     */
+    @Param({"10", "100"})
+    public int blocks;
+
+    private Block[] changing;
+    private int stage;
+
+    @Setup
+    public void setup() {
+        StubMiningHandler handler = new StubMiningHandler();
+        handler.loadTables();
+        Stubs.inject(MiningController.INSTANCE, "handler", handler);
+
+        World world = Stubs.world("world");
+        for (int i = 0; i < viewers; i++) {
+            Player player = Stubs.player(world, new ItemStack(Material.DIAMOND_PICKAXE));
+            ViewerController.INSTANCE.onJoin(new PlayerJoinEvent(player, null));
+        }
+
+        this.changing = new Block[blocks];
+        for (int i = 0; i < blocks; i++) {
+            changing[i] = Stubs.block(world, i % 16, 64, i / 16, Material.STONE);
+        }
+    }
+
+    @Benchmark
+    public void broadcast() {
+        stage = (stage + 1) % 10;
+
+        for (Block block : changing) {
+            AnimationController.INSTANCE.queue(block, stage, null);
+        }
+
+        AnimationController.INSTANCE.flush();
+    }
+}
@@ -0,0 +1,50 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.controller.HardnessController;
+import com.illuzionzstudios.custommining.controller.MiningController;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of working out the break time of a block when
+ * a player clicks it, with and without the break time cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BreakTimeBenchmark {
+
+    private Block block;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        StubMiningHandler handler = new StubMiningHandler();
+        handler.loadTables();
+        Stubs.inject(MiningController.INSTANCE, "handler", handler);
+
+        World world = Stubs.world("world");
+        this.block = Stubs.block(world, 0, 64, 0, Material.STONE);
+        this.player = Stubs.player(world, new ItemStack(Material.DIAMOND_PICKAXE));
+    }
+
+    @Benchmark
+    public float cached() {
+        return HardnessController.INSTANCE.processFinalBreakTime(block, player);
+    }
+
+    @Benchmark
+    public float uncached() {
+        HardnessController.INSTANCE.invalidateCache();
+        return HardnessController.INSTANCE.processFinalBreakTime(block, player);
+    }
+}
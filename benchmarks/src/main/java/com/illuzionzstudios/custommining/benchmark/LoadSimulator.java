@@ -0,0 +1,209 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.controller.MiningController;
+import com.illuzionzstudios.custommining.controller.ViewerController;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.custommining.task.MiningRegistry;
+import com.illuzionzstudios.custommining.util.BlockKey;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless load test that drives the real controllers with
+ * many {@link SimulatedMiner}'s strip mining at once.
+ * <p>
+ * Runs the {@link MiningEngine} and main thread work on one thread
+ * and reports the CPU time of each tick, latency from click to the
+ * first animation and to the break, live tasks and heap growth.
+ * After the run every player quits and any task left in the
+ * registry or engine is reported as a leak.
+ * <p>
+ * Usage: {@code LoadSimulator [--players 300] [--ticks 1200] [--abort 0.02] [--unpaced]}
+ */
+public class LoadSimulator {
+
+    private final int playerCount;
+    private final int ticks;
+    private final double abortChance;
+    private final boolean paced;
+
+    private final List<Player> online = new ArrayList<>();
+    private final Map<UUID, SimulatedMiner> miners = new HashMap<>();
+    private final Queue<Runnable> sync = new ConcurrentLinkedQueue<>();
+
+    private final Samples tickCpu = new Samples();
+    private final Samples firstAnimation = new Samples();
+    private final Samples clickToBreak = new Samples();
+    private final Samples liveTasks = new Samples();
+
+    public LoadSimulator(int playerCount, int ticks, double abortChance, boolean paced) {
+        this.playerCount = playerCount;
+        this.ticks = ticks;
+        this.abortChance = abortChance;
+        this.paced = paced;
+    }
+
+    public static void main(String[] args) {
+        int players = 300;
+        int ticks = 1200;
+        double abort = 0.02;
+        boolean paced = true;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--players" -> players = Integer.parseInt(args[++i]);
+                case "--ticks" -> ticks = Integer.parseInt(args[++i]);
+                case "--abort" -> abort = Double.parseDouble(args[++i]);
+                case "--unpaced" -> paced = false;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        new LoadSimulator(players, ticks, abort, paced).run();
+    }
+
+    public void run() {
+        Bukkit.setServer(Stubs.server(online, sync, event -> {
+            if (event instanceof BlockBreakEvent breakEvent) onBreak(breakEvent);
+        }));
+
+        SimulationHandler handler = new SimulationHandler();
+        handler.loadTables();
+        Stubs.inject(MiningController.INSTANCE, "handler", handler);
+        Stubs.inject(MiningController.INSTANCE, "miningTasks", new MiningRegistry());
+
+        World world = Stubs.world("world");
+        for (int i = 0; i < playerCount; i++) {
+            Player player = Stubs.player(world, new ItemStack(Material.IRON_PICKAXE));
+            online.add(player);
+            // Lanes 2 blocks apart so everyone sees each others animations
+            miners.put(player.getUniqueId(), new SimulatedMiner(player, world, (i % 32) * 2, abortChance));
+            ViewerController.INSTANCE.onJoin(new PlayerJoinEvent(player, null));
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        long next = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            long cpuStart = threads.getCurrentThreadCpuTime();
+
+            // Main thread, players clicking
+            for (SimulatedMiner miner : miners.values()) {
+                miner.act();
+            }
+
+            MiningEngine.INSTANCE.tick();
+
+            // Main thread, breaks handed back by the engine
+            MiningEngine.INSTANCE.getBreakQueue().drain();
+            Runnable task;
+            while ((task = sync.poll()) != null) {
+                task.run();
+            }
+
+            tickCpu.add(threads.getCurrentThreadCpuTime() - cpuStart);
+
+            if (tick % 20 == 0) liveTasks.add(MiningController.INSTANCE.getMiningTasks().size());
+
+            if (paced) {
+                next += TimeUnit.MILLISECONDS.toNanos(50);
+                long sleep = next - System.nanoTime();
+                if (sleep > 0) sleepNanos(sleep);
+            }
+        }
+
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        // Everyone leaves, nothing should be left behind
+        for (Player player : online) {
+            MiningController.INSTANCE.onLeave(new PlayerQuitEvent(player, null));
+            ViewerController.INSTANCE.onLeave(new PlayerQuitEvent(player, null));
+        }
+        MiningEngine.INSTANCE.tick();
+        MiningEngine.INSTANCE.getBreakQueue().drain();
+        sync.forEach(Runnable::run);
+
+        report(heapBefore, heapAfter, handler);
+    }
+
+    private void onBreak(BlockBreakEvent event) {
+        SimulatedMiner miner = miners.get(event.getPlayer().getUniqueId());
+        if (miner == null) return;
+
+        long latency = miner.onBreak(BlockKey.of(event.getBlock()));
+        if (latency >= 0) clickToBreak.add(latency);
+    }
+
+    private void report(long heapBefore, long heapAfter, SimulationHandler handler) {
+        long clicks = 0, aborts = 0, breaks = 0;
+        for (SimulatedMiner miner : miners.values()) {
+            clicks += miner.getClicks();
+            aborts += miner.getAborts();
+            breaks += miner.getBreaks();
+        }
+
+        System.out.printf("Players %d, ticks %d, %s%n", playerCount, ticks, paced ? "paced at 20 tps" : "unpaced");
+        System.out.printf("Clicks %d, aborts %d, breaks %d%n", clicks, aborts, breaks);
+        System.out.printf("Tick CPU       p50 %s p99 %s max %s%n", millis(tickCpu.percentile(50)), millis(tickCpu.percentile(99)), millis(tickCpu.max()));
+        System.out.printf("First anim     p50 %s p99 %s max %s%n", millis(firstAnimation.percentile(50)), millis(firstAnimation.percentile(99)), millis(firstAnimation.max()));
+        System.out.printf("Click to break p50 %s p99 %s max %s%n", millis(clickToBreak.percentile(50)), millis(clickToBreak.percentile(99)), millis(clickToBreak.max()));
+        System.out.printf("Live tasks     p50 %d max %d%n", liveTasks.percentile(50), liveTasks.max());
+        System.out.printf("Packets %d, flushes %d%n", handler.packets, handler.flushes);
+        System.out.printf("Break queue spills %d, carried %d%n", MiningEngine.INSTANCE.getBreakQueue().getSpills(), MiningEngine.INSTANCE.getBreakQueue().getCarried());
+        System.out.printf("Heap growth %.1fMB%n", (heapAfter - heapBefore) / (1024.0 * 1024.0));
+
+        int leakedRegistry = MiningController.INSTANCE.getMiningTasks().size();
+        int leakedEngine = MiningEngine.INSTANCE.getActiveCount();
+        if (leakedRegistry > 0 || leakedEngine > 0) {
+            System.out.printf("LEAK: %d tasks left in registry, %d in engine after all players left%n", leakedRegistry, leakedEngine);
+        } else {
+            System.out.println("No tasks left after all players left");
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records when each miner sees the first animation of their block
+     */
+    private class SimulationHandler extends StubMiningHandler {
+
+        @Override
+        public void writePacket(Player player, Object packet) {
+            super.writePacket(player, packet);
+
+            SimulatedMiner miner = miners.get(player.getUniqueId());
+            if (miner == null) return;
+
+            long latency = miner.onAnimation(BlockKey.of(((StubPacket) packet).block()));
+            if (latency >= 0) firstAnimation.add(latency);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.task.MiningRegistry;
+import com.illuzionzstudios.custommining.task.MiningTask;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of looking up, pausing, resuming and cancelling
+ * tasks in the {@link MiningRegistry}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int tasks;
+
+    private MiningRegistry registry;
+    private World world;
+    private MiningTask[] registered;
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.registry = new MiningRegistry();
+        this.world = Stubs.world("world");
+        this.registered = new MiningTask[tasks];
+
+        for (int i = 0; i < tasks; i++) {
+            Player player = Stubs.player(world, new ItemStack(Material.DIAMOND_PICKAXE));
+            registered[i] = new MiningTask(player, Stubs.block(world, i, 64, i >> 8, Material.STONE), 100, (p, b) -> {
+            });
+            registry.register(registered[i]);
+        }
+    }
+
+    private MiningTask nextTask() {
+        MiningTask task = registered[next];
+        next = (next + 1) % registered.length;
+        return task;
+    }
+
+    @Benchmark
+    public MiningTask lookup() {
+        MiningTask task = nextTask();
+        return registry.get(task.getPlayer(), world, task.getKey());
+    }
+
+    @Benchmark
+    public void pauseResume() {
+        MiningTask task = nextTask();
+        registry.get(task.getPlayer(), world, task.getKey()).setEnabled(false);
+        registry.get(task.getPlayer(), world, task.getKey()).setEnabled(true);
+    }
+
+    @Benchmark
+    public void cancel() {
+        MiningTask task = nextTask();
+        registry.removeAll(world, task.getKey());
+
+        // Put it back so the registry stays the same size
+        registry.register(task);
+    }
+}
@@ -0,0 +1,39 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of long samples for working out percentiles
+ * at the end of a run
+ */
+public class Samples {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    public void add(long value) {
+        if (size == values.length) values = Arrays.copyOf(values, size << 1);
+        values[size++] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return The value at the percentile, or 0 with no samples
+     */
+    public long percentile(double percentile) {
+        if (size == 0) return 0;
+
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    public long max() {
+        return percentile(100);
+    }
+}
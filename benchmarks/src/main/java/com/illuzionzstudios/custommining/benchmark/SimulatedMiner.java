@@ -0,0 +1,135 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.controller.MiningController;
+import com.illuzionzstudios.custommining.task.DigQueue;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.custommining.util.BlockKey;
+import lombok.Getter;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.player.PlayerInteractEvent;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A fake player strip mining down a tunnel. Clicks the next
+ * block once the last one breaks, and every so often gives up
+ * on a block and moves on, like looking away mid dig
+ */
+@Getter
+public class SimulatedMiner {
+
+    private final Player player;
+    private final World world;
+
+    /**
+     * X of the tunnel, each miner gets their own
+     */
+    private final int lane;
+
+    /**
+     * Chance each tick to abort the current block
+     */
+    private final double abortChance;
+
+    /**
+     * How far down the tunnel the miner is
+     */
+    private int depth;
+
+    /**
+     * Packed position of the block being mined
+     */
+    private long target = -1;
+
+    /**
+     * When the current block was clicked
+     */
+    private long clickedAt;
+
+    /**
+     * If we're still waiting on the first animation of the block
+     */
+    private boolean awaitingAnimation;
+
+    /**
+     * If the current block broke
+     */
+    private boolean broken = true;
+
+    private long clicks;
+    private long aborts;
+    private long breaks;
+
+    public SimulatedMiner(Player player, World world, int lane, double abortChance) {
+        this.player = player;
+        this.world = world;
+        this.lane = lane;
+        this.abortChance = abortChance;
+    }
+
+    /**
+     * Do whatever the player would this tick
+     */
+    public void act() {
+        if (broken) {
+            clickNext();
+            return;
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < abortChance) {
+            // Stop digging and swing at the next block instead
+            MiningEngine.INSTANCE.getDigQueue().offer(player, DigQueue.ABORT, lane, 64, depth);
+            aborts++;
+            clickNext();
+        }
+    }
+
+    /**
+     * Start mining the next block down the tunnel
+     */
+    private void clickNext() {
+        depth++;
+        broken = false;
+
+        Block block = Stubs.block(world, lane, 64, depth, Material.STONE);
+        target = BlockKey.of(block);
+        clickedAt = System.nanoTime();
+        awaitingAnimation = true;
+        clicks++;
+
+        // Same order as a real client, the interact is handled
+        // on the main thread and the dig packet queued for the engine
+        MiningController.INSTANCE.onInteract(new PlayerInteractEvent(player, Action.LEFT_CLICK_BLOCK, player.getInventory().getItemInMainHand(), block, BlockFace.UP));
+        MiningEngine.INSTANCE.getDigQueue().offer(player, DigQueue.START, lane, 64, depth);
+    }
+
+    /**
+     * Called when the miner is sent an animation for a block
+     *
+     * @return Nanos since the click if it's the first animation of the current block, otherwise -1
+     */
+    public long onAnimation(long key) {
+        if (!awaitingAnimation || key != target) return -1;
+
+        awaitingAnimation = false;
+        return System.nanoTime() - clickedAt;
+    }
+
+    /**
+     * Called when the miner breaks a block
+     *
+     * @return Nanos since the click if it was the current block, otherwise -1
+     */
+    public long onBreak(long key) {
+        if (broken || key != target) return -1;
+
+        broken = true;
+        breaks++;
+        return System.nanoTime() - clickedAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.MaterialTables;
+import com.illuzionzstudios.custommining.MiningHandler;
+import io.netty.channel.Channel;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * {@link MiningHandler} that doesn't touch NMS. Packets are only
+ * counted so benchmarks measure our own code
+ */
+public class StubMiningHandler implements MiningHandler {
+
+    /**
+     * Precomputed hardness and tool speeds
+     */
+    private MaterialTables tables;
+
+    /**
+     * Packets that would have been sent
+     */
+    public long packets;
+
+    /**
+     * Flushes that would have been done
+     */
+    public long flushes;
+
+    @Override
+    public void loadTables() {
+        this.tables = MaterialTables.build(
+                material -> material.isBlock() && !material.isLegacy(),
+                material -> material.isItem() && !material.isLegacy(),
+                Material.AIR,
+                material -> material == Material.BEDROCK ? -1f : 3f,
+                (item, block) -> item.name().endsWith("_PICKAXE") ? 8f : 1f,
+                (item, block) -> item.name().endsWith("_PICKAXE"));
+    }
+
+    @Override
+    public void sendBlockBreak(Block block, int damage, Player... players) {
+        packets += players.length;
+    }
+
+    @Override
+    public void sendBlockBreak(Block block, int damage, List<Player> players) {
+        packets += players.size();
+    }
+
+    @Override
+    public Object createBlockBreak(int breakerId, Block block, int damage) {
+        return new StubPacket(breakerId, block, damage);
+    }
+
+    @Override
+    public Channel getChannel(Player player) {
+        return null;
+    }
+
+    @Override
+    public void writePacket(Player player, Object packet) {
+        packets++;
+    }
+
+    @Override
+    public void flush(Player player) {
+        flushes++;
+    }
+
+    @Override
+    public void cancelClientBreaking(Player player) {
+        packets++;
+    }
+
+    @Override
+    public float getDefaultBlockHardness(Block block) {
+        return tables.getHardness(block.getType());
+    }
+
+    @Override
+    public int getDefaultBlockExp(Block block, ItemStack item, boolean spawnEntity) {
+        return 0;
+    }
+
+    @Override
+    public float getBaseMultiplier(ItemStack item, Block block) {
+        return tables.getDestroySpeed(item.getType(), block.getType());
+    }
+
+    @Override
+    public boolean canDestroyBlock(ItemStack item, Block block) {
+        return tables.canHarvest(item.getType(), block.getType());
+    }
+
+    @Override
+    public void playBreakEffect(Block block, int particles) {
+    }
+
+    /**
+     * What would have been a block break animation packet
+     */
+    public record StubPacket(int breakerId, Block block, int damage) {
+    }
+}
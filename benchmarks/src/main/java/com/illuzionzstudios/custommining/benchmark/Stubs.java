@@ -0,0 +1,177 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lightweight stand ins for Bukkit objects so the mining code can
+ * run without a real server. Built as dynamic proxies that answer only the
+ * methods the mining code uses, everything else returns a default value
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Create a proxy of an interface
+     *
+     * @param type    The interface to implement
+     * @param answers Answers for methods by name, given the call arguments
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) return answer.apply(args);
+
+            // Identity semantics
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * @return A world with a random id
+     */
+    public static World world(String name) {
+        UUID uuid = UUID.randomUUID();
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getUID", args -> uuid);
+        answers.put("getName", args -> name);
+        return proxy(World.class, answers);
+    }
+
+    /**
+     * @return A block of a material at a position
+     */
+    public static Block block(World world, int x, int y, int z, Material type) {
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getWorld", args -> world);
+        answers.put("getX", args -> x);
+        answers.put("getY", args -> y);
+        answers.put("getZ", args -> z);
+        answers.put("getType", args -> type);
+        answers.put("isPreferredTool", args -> true);
+        return proxy(Block.class, answers);
+    }
+
+    /**
+     * @return An online player in a world holding an item
+     */
+    public static Player player(World world, ItemStack hand) {
+        UUID uuid = UUID.randomUUID();
+        Map<String, Function<Object[], Object>> inventoryAnswers = new HashMap<>();
+        inventoryAnswers.put("getItemInMainHand", args -> hand);
+        inventoryAnswers.put("getArmorContents", args -> new ItemStack[4]);
+        PlayerInventory inventory = proxy(PlayerInventory.class, inventoryAnswers);
+
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getUniqueId", args -> uuid);
+        answers.put("getName", args -> uuid.toString().substring(0, 16));
+        answers.put("getWorld", args -> world);
+        answers.put("getLocation", args -> new Location(world, 0, 64, 0));
+        answers.put("getInventory", args -> inventory);
+        answers.put("isOnline", args -> true);
+        answers.put("isOnGround", args -> true);
+        return proxy(Player.class, answers);
+    }
+
+    /**
+     * A server for the simulator. Sync tasks are handed to a queue the
+     * caller runs as the main thread and events go to a single listener
+     *
+     * @param online Players to report as online
+     * @param sync   Queue receiving tasks scheduled to run sync
+     * @param events Called for every event fired
+     */
+    public static Server server(Collection<? extends Player> online, Queue<Runnable> sync, Consumer<Event> events) {
+        Map<String, Function<Object[], Object>> schedulerAnswers = new HashMap<>();
+        schedulerAnswers.put("runTask", args -> {
+            sync.add((Runnable) args[1]);
+            return null;
+        });
+        schedulerAnswers.put("scheduleSyncDelayedTask", args -> {
+            sync.add((Runnable) args[1]);
+            return 0;
+        });
+        schedulerAnswers.put("isCurrentlyRunning", args -> false);
+        BukkitScheduler scheduler = proxy(BukkitScheduler.class, schedulerAnswers);
+
+        Map<String, Function<Object[], Object>> pluginAnswers = new HashMap<>();
+        pluginAnswers.put("callEvent", args -> {
+            events.accept((Event) args[0]);
+            return null;
+        });
+        PluginManager pluginManager = proxy(PluginManager.class, pluginAnswers);
+
+        // No item meta so item stacks never need a real item factory
+        ItemFactory itemFactory = proxy(ItemFactory.class, new HashMap<>());
+
+        java.util.logging.Logger logger = java.util.logging.Logger.getLogger("Simulator");
+        Map<String, Function<Object[], Object>> answers = new HashMap<>();
+        answers.put("getLogger", args -> logger);
+        answers.put("getName", args -> "Simulator");
+        answers.put("getVersion", args -> "simulated");
+        answers.put("getBukkitVersion", args -> "1.17.1-R0.1-SNAPSHOT");
+        answers.put("getScheduler", args -> scheduler);
+        answers.put("getPluginManager", args -> pluginManager);
+        answers.put("getItemFactory", args -> itemFactory);
+        answers.put("getOnlinePlayers", args -> online);
+        answers.put("isPrimaryThread", args -> true);
+        return proxy(Server.class, answers);
+    }
+
+    /**
+     * Set a private field, used to put stubs into controllers
+     */
+    public static void inject(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Couldn't inject " + name, e);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == long.class) return 0L;
+        if (type == int.class) return 0;
+        if (type == short.class) return (short) 0;
+        return (byte) 0;
+    }
+}
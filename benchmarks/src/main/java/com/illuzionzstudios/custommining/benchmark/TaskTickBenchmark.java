@@ -0,0 +1,80 @@
+package com.illuzionzstudios.custommining.benchmark;
+
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.MiningController;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.custommining.task.MiningRegistry;
+import com.illuzionzstudios.custommining.task.MiningTask;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one engine tick advancing every active task,
+ * including flushing the animations they queued
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskTickBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int tasks;
+
+    private Player[] players;
+    private Block[] blocks;
+    private MiningTask[] active;
+
+    @Setup
+    public void setup() {
+        StubMiningHandler handler = new StubMiningHandler();
+        handler.loadTables();
+        Stubs.inject(MiningController.INSTANCE, "handler", handler);
+        // Tasks reaching the cleanup threshold are cancelled through the registry
+        Stubs.inject(MiningController.INSTANCE, "miningTasks", new MiningRegistry());
+
+        World world = Stubs.world("world");
+        this.players = new Player[tasks];
+        this.blocks = new Block[tasks];
+        this.active = new MiningTask[tasks];
+        for (int i = 0; i < tasks; i++) {
+            players[i] = Stubs.player(world, new ItemStack(Material.DIAMOND_PICKAXE));
+            blocks[i] = Stubs.block(world, i, 64, i >> 8, Material.STONE);
+            active[i] = create(i);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        int alive = 0;
+        for (int i = 0; i < active.length; i++) {
+            if (active[i].tick()) {
+                alive++;
+            } else {
+                // Finished or cleaned up, start again so every
+                // tick measured advances a live task
+                active[i] = create(i);
+            }
+        }
+
+        // Never broken here, only offered to the queue
+        MiningEngine.INSTANCE.getBreakQueue().clear();
+        AnimationController.INSTANCE.flush();
+        return alive;
+    }
+
+    private MiningTask create(int i) {
+        // Long break times with different lengths so stages
+        // change on different ticks like a real server
+        return new MiningTask(players[i], blocks[i], 200 + (i % 400) * 10_000, (p, b) -> {
+        });
+    }
+}
@@ -1,10 +1,20 @@
 package com.illuzionzstudios.custommining;
 
+import com.illuzionzstudios.custommining.command.CustomMiningCommand;
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.FatigueController;
+import com.illuzionzstudios.custommining.controller.GovernorController;
 import com.illuzionzstudios.custommining.controller.HardnessController;
 import com.illuzionzstudios.custommining.controller.MiningController;
 import com.illuzionzstudios.custommining.controller.ModifierController;
+import com.illuzionzstudios.custommining.controller.PersistenceController;
+import com.illuzionzstudios.custommining.controller.ProfileController;
+import com.illuzionzstudios.custommining.controller.ProtectionController;
+import com.illuzionzstudios.custommining.controller.StatsController;
+import com.illuzionzstudios.custommining.controller.ViewerController;
 import com.illuzionzstudios.custommining.settings.MiningLocale;
 import com.illuzionzstudios.custommining.settings.Settings;
+import com.illuzionzstudios.custommining.task.MiningEngine;
 import com.illuzionzstudios.mist.config.PluginSettings;
 import com.illuzionzstudios.mist.config.locale.PluginLocale;
 import com.illuzionzstudios.mist.plugin.SpigotPlugin;
@@ -49,19 +59,53 @@ public final class CustomMining extends SpigotPlugin {
 
     public void onPluginEnable() {
         // Load controllers
+        StatsController.INSTANCE.initialize(this);
+        GovernorController.INSTANCE.initialize(this);
+        ProfileController.INSTANCE.initialize(this);
+        ViewerController.INSTANCE.initialize(this);
+        AnimationController.INSTANCE.initialize(this);
+        FatigueController.INSTANCE.initialize(this);
         ModifierController.INSTANCE.initialize(this);
+        ProtectionController.INSTANCE.initialize(this);
         HardnessController.INSTANCE.initialize(this);
+        PersistenceController.INSTANCE.initialize(this);
         MiningController.INSTANCE.initialize(this);
+        MiningEngine.INSTANCE.initialize(this);
+
+        CustomMiningCommand command = new CustomMiningCommand();
+        Objects.requireNonNull(getCommand("custommining")).setExecutor(command);
+        Objects.requireNonNull(getCommand("custommining")).setTabCompleter(command);
 
         // Metrics
         int pluginId = 7248;
-        new Metrics(this, pluginId);
+        Metrics metrics = new Metrics(this, pluginId);
+        StatsController.INSTANCE.addCharts(metrics);
     }
 
     public void onPluginDisable() {
+        ProfileController.INSTANCE.stop(this);
+        ViewerController.INSTANCE.stop(this);
+        AnimationController.INSTANCE.stop(this);
+        FatigueController.INSTANCE.stop(this);
         ModifierController.INSTANCE.stop(this);
+        ProtectionController.INSTANCE.stop(this);
         HardnessController.INSTANCE.stop(this);
+        MiningEngine.INSTANCE.stop(this);
+        // Save progress before tasks are cleared
+        PersistenceController.INSTANCE.stop(this);
         MiningController.INSTANCE.stop(this);
+        GovernorController.INSTANCE.stop(this);
+        StatsController.INSTANCE.stop(this);
+    }
+
+    /**
+     * Load settings again and apply them without a restart.
+     * Running tasks use the new settings from their next tick
+     */
+    public void reloadMining() {
+        onPluginPreReload();
+        getPluginSettings().loadSettings();
+        onPluginReload();
     }
 
     @Override
@@ -71,7 +115,11 @@ public final class CustomMining extends SpigotPlugin {
 
     @Override
     public void onPluginReload() {
-
+        // Settings may change break times
+        ModifierController.INSTANCE.loadSettings();
+        ProfileController.INSTANCE.loadTiers();
+        HardnessController.INSTANCE.loadOverrides(this);
+        ProtectionController.INSTANCE.invalidate();
     }
 
     @Override
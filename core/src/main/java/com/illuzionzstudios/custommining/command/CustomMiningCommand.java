@@ -0,0 +1,75 @@
+package com.illuzionzstudios.custommining.command;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.controller.StatsController;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The main {@code /custommining} command
+ */
+public class CustomMiningCommand implements CommandExecutor, TabCompleter {
+
+    /**
+     * Sub commands and the permission needed for each
+     */
+    private static final String[][] SUB_COMMANDS = {
+            {"stats", "custommining.stats"},
+            {"reload", "custommining.reload"}
+    };
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 0) {
+            sender.sendMessage(ChatColor.GRAY + "Usage: /" + label + " <stats|reload>");
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("stats")) {
+            if (!sender.hasPermission("custommining.stats")) {
+                sender.sendMessage(ChatColor.RED + "You don't have permission to do that");
+                return true;
+            }
+
+            sender.sendMessage(ChatColor.GOLD + "CustomMining stats");
+            for (String line : StatsController.INSTANCE.getReport()) {
+                sender.sendMessage(ChatColor.GRAY + " " + line);
+            }
+            return true;
+        }
+
+        if (args[0].equalsIgnoreCase("reload")) {
+            if (!sender.hasPermission("custommining.reload")) {
+                sender.sendMessage(ChatColor.RED + "You don't have permission to do that");
+                return true;
+            }
+
+            long start = System.nanoTime();
+            CustomMining.getInstance().reloadMining();
+            sender.sendMessage(ChatColor.GREEN + "Reloaded settings in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+            return true;
+        }
+
+        sender.sendMessage(ChatColor.RED + "Unknown sub command " + args[0]);
+        return true;
+    }
+
+    @Override
+    public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
+        List<String> completions = new ArrayList<>();
+        if (args.length != 1) return completions;
+
+        for (String[] sub : SUB_COMMANDS) {
+            if (sub[0].startsWith(args[0].toLowerCase()) && sender.hasPermission(sub[1]))
+                completions.add(sub[0]);
+        }
+        return completions;
+    }
+}
@@ -0,0 +1,501 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.MiningHandler;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.custommining.task.MiningRegistry;
+import com.illuzionzstudios.custommining.util.AnimationRing;
+import com.illuzionzstudios.custommining.util.BlockKey;
+import com.illuzionzstudios.custommining.util.BreakerIds;
+import com.illuzionzstudios.custommining.util.LongObjectMap;
+import com.illuzionzstudios.mist.controller.PluginController;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound stage for block break animations.
+ * <p>
+ * Instead of sending a packet straight away for every stage change,
+ * updates are gathered over a tick. At the end of the tick only the latest
+ * stage for each block is kept, each player's packets are written together
+ * and every connection is flushed once. Flushed by the {@link MiningEngine}
+ * <p>
+ * Updates are queued into a preallocated {@link AnimationRing} and gathered
+ * into pooled entries reused every tick. Each block and target animating gets
+ * a recycled breaker id from {@link BreakerIds} and keeps the packets it's sent,
+ * so a stage's packet is made once and then written to every viewer and any
+ * resend without allocating again. An id is only freed once it's texture is
+ * cleared, or nothing mining the block is left to clear it
+ */
+public enum AnimationController implements PluginController<CustomMining> {
+    INSTANCE;
+
+    /**
+     * Stage that removes the damage texture
+     */
+    private static final int CLEAR = 10;
+
+    /**
+     * Ticks between looking for animations nothing owns anymore
+     */
+    private static final int SWEEP_TICKS = 20 * 10;
+
+    /**
+     * Updates that can be queued between flushes before spilling
+     */
+    private static final int RING_CAPACITY = 8192;
+
+    /**
+     * Updates queued since the last flush, from any thread
+     */
+    private final AnimationRing queued = new AnimationRing(RING_CAPACITY);
+
+    /**
+     * Updates queued while the ring was full, drained every flush
+     * along with the ring. Allocates like before the ring
+     */
+    private final Queue<Spilled> spilled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Numbers updates in the order they were queued, so however they
+     * were queued and drained an older update never replaces a newer one
+     */
+    private final AtomicLong order = new AtomicLong();
+
+    /**
+     * Latest update for each block this tick, chained by position.
+     * Only touched while flushing
+     */
+    private final LongObjectMap<Animation> latest = new LongObjectMap<>(64);
+
+    /**
+     * Entries reused every tick, the first {@link #pending} are this
+     * tick's updates in the order they came in. Only grows when a tick
+     * has more blocks than any before it
+     */
+    private final List<Animation> ordered = new ArrayList<>();
+
+    private int pending;
+
+    /**
+     * Gathers drained updates, kept so draining doesn't make a lambda
+     */
+    private final AnimationRing.Consumer gather = this::gather;
+
+    /**
+     * Players written to this tick that need flushing
+     */
+    private final Set<Player> written = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Blocks currently animating in each world, chained by target.
+     * Only touched while flushing
+     */
+    private final Map<World, LongObjectMap<BlockAnimation>> animating = new IdentityHashMap<>();
+
+    /**
+     * Breaker ids of animating blocks
+     */
+    private final BreakerIds breakerIds = new BreakerIds();
+
+    /**
+     * Engine tick animations nothing owns were last looked for
+     */
+    private long lastSweep;
+
+    /**
+     * Updates dropped because a newer stage replaced them
+     */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Packets written to players
+     */
+    private final LongAdder sent = new LongAdder();
+
+    /**
+     * Connection flushes done
+     */
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * Updates queued while the ring was full
+     */
+    private final LongAdder spills = new LongAdder();
+
+    @Override
+    public void initialize(CustomMining plugin) {
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        queued.clear();
+        spilled.clear();
+        animating.clear();
+        breakerIds.clear();
+    }
+
+    /**
+     * Queue a damage texture update for a block, sent at the end of the tick
+     *
+     * @param block  The block to show damage on
+     * @param damage The damage stage to display
+     * @param target Player to show it to, or null to show all viewers
+     */
+    public void queue(Block block, int damage, @Nullable Player target) {
+        long order = this.order.incrementAndGet();
+        if (queued.offer(block, damage, target, order)) return;
+
+        spilled.add(new Spilled(block, damage, target, order));
+        spills.increment();
+    }
+
+    /**
+     * Send all updates queued this tick. Only called from the engine thread
+     */
+    public void flush() {
+        long tick = MiningEngine.INSTANCE.getCurrentTick();
+        if (tick - lastSweep >= SWEEP_TICKS) sweep(tick);
+
+        if (queued.isEmpty() && spilled.isEmpty()) return;
+
+        // Keep the latest stage of each block
+        queued.drain(gather);
+        Spilled update;
+        while ((update = spilled.poll()) != null) {
+            gather(update.block, update.damage, update.target, update.order);
+        }
+
+        MiningHandler handler = MiningController.INSTANCE.getHandler();
+
+        // Write everything to each player
+        for (int i = 0; i < pending; i++) {
+            Animation animation = ordered.get(i);
+            LongObjectMap<BlockAnimation> blocks = animating.computeIfAbsent(animation.world, world -> new LongObjectMap<>());
+
+            // Clearing for everyone clears what each target was shown too
+            if (animation.target == null && stage(animation.damage) == CLEAR) {
+                BlockAnimation state = blocks.get(animation.key);
+                while (state != null) {
+                    BlockAnimation next = state.next;
+                    if (animation.order > state.lastOrder) {
+                        send(handler, state, animation.block, CLEAR, state.target);
+                        release(blocks, state);
+                    }
+                    state = next;
+                }
+                continue;
+            }
+
+            BlockAnimation state = findState(blocks, animation);
+            if (state == null) {
+                // Nothing showing to clear
+                if (stage(animation.damage) == CLEAR) continue;
+
+                state = new BlockAnimation(breakerIds.allocate(), animation.key, animation.target);
+                state.next = blocks.get(animation.key);
+                blocks.put(animation.key, state);
+            }
+
+            // Something newer was already sent, like after a spill drained late
+            if (animation.order < state.lastOrder) continue;
+            state.lastOrder = animation.order;
+
+            send(handler, state, animation.block, animation.damage, animation.target);
+
+            // Animation is over so the id can be used again
+            if (stage(animation.damage) == CLEAR) release(blocks, state);
+        }
+
+        // One flush per connection
+        for (Player player : written) {
+            handler.flush(player);
+            flushes.increment();
+        }
+
+        // Drop references but keep the entries for next tick
+        for (int i = 0; i < pending; i++) {
+            ordered.get(i).clear();
+        }
+
+        latest.clear();
+        pending = 0;
+        written.clear();
+    }
+
+    /**
+     * Add an update to this tick's, replacing an older one for the same block and target
+     */
+    private void gather(Block block, int damage, Player target, long order) {
+        World world = block.getWorld();
+        long key = BlockKey.of(block);
+
+        Animation head = latest.get(key);
+        for (Animation existing = head; existing != null; existing = existing.next) {
+            if (existing.world == world && existing.target == target) {
+                // Only ever replace with something queued later
+                if (order > existing.order) {
+                    existing.damage = damage;
+                    existing.order = order;
+                }
+                coalesced.increment();
+                return;
+            }
+        }
+
+        Animation animation;
+        if (pending < ordered.size()) {
+            animation = ordered.get(pending);
+        } else {
+            animation = new Animation();
+            ordered.add(animation);
+        }
+        pending++;
+
+        animation.set(block, world, key, damage, target, order, head);
+        latest.put(key, animation);
+    }
+
+    /**
+     * Write a block's stage to it's target, or everyone who can see it
+     */
+    private void send(MiningHandler handler, BlockAnimation state, Block block, int damage, @Nullable Player target) {
+        Object packet = state.packet(handler, block, damage);
+
+        if (target != null) {
+            write(handler, packet, target);
+        } else {
+            List<Player> viewers = ViewerController.INSTANCE.getViewers(block.getWorld(), block.getX(), block.getZ());
+            for (int j = 0; j < viewers.size(); j++) {
+                write(handler, packet, viewers.get(j));
+            }
+        }
+    }
+
+    private void write(MiningHandler handler, Object packet, Player player) {
+        handler.writePacket(player, packet);
+        written.add(player);
+        sent.increment();
+    }
+
+    /**
+     * @return The animation state of a block for the update's target, or null if none
+     */
+    private BlockAnimation findState(LongObjectMap<BlockAnimation> blocks, Animation animation) {
+        for (BlockAnimation state = blocks.get(animation.key); state != null; state = state.next) {
+            if (state.target == animation.target) {
+                state.orphaned = false;
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Unchain a state and free it's breaker id
+     */
+    private void release(LongObjectMap<BlockAnimation> blocks, BlockAnimation state) {
+        BlockAnimation head = blocks.get(state.key);
+        if (head == state) {
+            blocks.put(state.key, state.next);
+        } else {
+            for (BlockAnimation previous = head; previous != null; previous = previous.next) {
+                if (previous.next == state) {
+                    previous.next = state.next;
+                    break;
+                }
+            }
+        }
+
+        state.next = null;
+        breakerIds.release(state.breakerId);
+    }
+
+    /**
+     * Free the ids of animations nothing owns anymore, like when the player
+     * left without their block being cleared. A state is only freed when two
+     * sweeps in a row find no task or dormant progress on it's block, so a
+     * clear queued as the task was removed still gets the right id. If the id
+     * is used again the old texture moves to the new block so nothing is left behind
+     */
+    private void sweep(long tick) {
+        lastSweep = tick;
+
+        List<BlockAnimation> unowned = new ArrayList<>();
+        for (Map.Entry<World, LongObjectMap<BlockAnimation>> entry : animating.entrySet()) {
+            World world = entry.getKey();
+            LongObjectMap<BlockAnimation> blocks = entry.getValue();
+
+            unowned.clear();
+            blocks.forEachKey((key, head) -> {
+                for (BlockAnimation state = head; state != null; state = state.next) {
+                    if (isOwned(world, key, state.target)) {
+                        state.orphaned = false;
+                    } else if (state.orphaned) {
+                        unowned.add(state);
+                    } else {
+                        state.orphaned = true;
+                    }
+                }
+            });
+
+            for (BlockAnimation state : unowned) {
+                release(blocks, state);
+            }
+        }
+    }
+
+    /**
+     * @return If a task is mining the block, or the target has it's progress kept
+     */
+    private boolean isOwned(World world, long key, @Nullable Player target) {
+        MiningRegistry tasks = MiningController.INSTANCE.getMiningTasks();
+        if (tasks != null && tasks.contains(world, key)) return true;
+        return MiningController.INSTANCE.hasDormant(world, key, target);
+    }
+
+    /**
+     * @return Stage to show, anything out of range clears the texture
+     */
+    private static int stage(int damage) {
+        return damage < 0 || damage >= CLEAR ? CLEAR : damage;
+    }
+
+    /**
+     * @return Amount of blocks with an animation showing
+     */
+    public int getAnimating() {
+        return breakerIds.inUse();
+    }
+
+    /**
+     * @return Updates dropped because a newer stage replaced them
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return Packets written to players
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * @return Connection flushes done
+     */
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return Updates queued while the ring was full
+     */
+    public long getSpills() {
+        return spills.sum();
+    }
+
+    /**
+     * Breaker id and packets of a block animating for one target
+     */
+    private static final class BlockAnimation {
+
+        private final int breakerId;
+
+        private final long key;
+
+        /**
+         * Player shown the animation, null for everyone who can see it
+         */
+        private final Player target;
+
+        /**
+         * Next state on the same block, for another target
+         */
+        private BlockAnimation next;
+
+        /**
+         * Packet for each stage, made when first needed
+         */
+        private final Object[] packets = new Object[CLEAR + 1];
+
+        /**
+         * Order of the last update sent
+         */
+        private long lastOrder;
+
+        /**
+         * Set when the last sweep found nothing owning the animation
+         */
+        private boolean orphaned;
+
+        private BlockAnimation(int breakerId, long key, Player target) {
+            this.breakerId = breakerId;
+            this.key = key;
+            this.target = target;
+        }
+
+        private Object packet(MiningHandler handler, Block block, int damage) {
+            int stage = stage(damage);
+            Object packet = packets[stage];
+            if (packet == null) {
+                packet = handler.createBlockBreak(breakerId, block, stage);
+                packets[stage] = packet;
+            }
+            return packet;
+        }
+    }
+
+    /**
+     * A pending damage update for a block, reused every tick
+     */
+    private static final class Animation {
+
+        private Block block;
+        private World world;
+        private long key;
+        private Player target;
+        private int damage;
+
+        /**
+         * When the update was queued, see {@link #order}
+         */
+        private long order;
+
+        /**
+         * Next update on the same position
+         */
+        private Animation next;
+
+        private void set(Block block, World world, long key, int damage, Player target, long order, Animation next) {
+            this.block = block;
+            this.world = world;
+            this.key = key;
+            this.damage = damage;
+            this.target = target;
+            this.order = order;
+            this.next = next;
+        }
+
+        private void clear() {
+            this.block = null;
+            this.world = null;
+            this.target = null;
+            this.next = null;
+        }
+    }
+
+    /**
+     * An update queued while the ring was full
+     */
+    private record Spilled(Block block, int damage, Player target, long order) {
+    }
+}
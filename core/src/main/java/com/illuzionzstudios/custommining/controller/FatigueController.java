@@ -0,0 +1,149 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.events.ListenerPriority;
+import com.comphenix.protocol.events.PacketAdapter;
+import com.comphenix.protocol.events.PacketEvent;
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.mist.controller.PluginController;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.event.player.*;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handles the fake mining fatigue we give players so the client
+ * doesn't play it's own breaking animation.
+ * <p>
+ * Rather than resending the effect to everyone all the time, it is only
+ * sent when something could have removed it on the client. Joining, respawning,
+ * changing worlds or gamemode, drinking milk, or the server sending an effect
+ * removal. A slow resync catches anything else
+ */
+public enum FatigueController implements PluginController<CustomMining>, Listener {
+    INSTANCE;
+
+    /**
+     * Players that need the effect sent on the next tick
+     */
+    private final Set<Player> pending = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
+        registerProtocols(plugin);
+
+        // Players already online on reload
+        pending.addAll(Bukkit.getOnlinePlayers());
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        pending.clear();
+    }
+
+    /**
+     * Send the effect to a player on the next tick. Waiting means
+     * it's sent after whatever removed it
+     *
+     * @param player The player to send to
+     */
+    public void resend(Player player) {
+        pending.add(player);
+    }
+
+    /**
+     * Send out pending effects, and to everyone on a resync.
+     * Called every tick by the {@link MiningEngine}
+     *
+     * @param tick The current engine tick
+     */
+    public void tick(long tick) {
+        // Resync less often when the server is lagging
+        long interval = (long) MiningConfig.get().fatigueResyncTicks() * GovernorController.INSTANCE.getFatigueMultiplier();
+        if (tick % interval == 0) {
+            pending.addAll(Bukkit.getOnlinePlayers());
+        }
+
+        if (pending.isEmpty()) return;
+
+        Iterator<Player> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            Player player = iterator.next();
+            iterator.remove();
+
+            if (player.isOnline())
+                MiningController.INSTANCE.getHandler().cancelClientBreaking(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        resend(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLeave(PlayerQuitEvent event) {
+        pending.remove(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        resend(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        resend(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event) {
+        resend(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        if (event.getItem().getType() == Material.MILK_BUCKET)
+            resend(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEffectChange(EntityPotionEffectEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+
+        // Real fatigue changing or everything being cleared
+        if (event.getAction() == EntityPotionEffectEvent.Action.CLEARED
+                || PotionEffectType.SLOW_DIGGING.equals(event.getModifiedType()))
+            resend(player);
+    }
+
+    /**
+     * Listen for the server telling a player their fatigue
+     * was removed so we can put ours back
+     */
+    private void registerProtocols(CustomMining plugin) {
+        ProtocolLibrary.getProtocolManager().addPacketListener(new PacketAdapter(plugin, ListenerPriority.MONITOR, PacketType.Play.Server.REMOVE_ENTITY_EFFECT) {
+            @Override
+            public void onPacketSending(PacketEvent event) {
+                // Only effects removed from the player themselves
+                if (event.getPacket().getIntegers().read(0) != event.getPlayer().getEntityId()) return;
+
+                if (PotionEffectType.SLOW_DIGGING.equals(event.getPacket().getEffectTypes().read(0)))
+                    resend(event.getPlayer());
+            }
+        });
+    }
+}
@@ -0,0 +1,242 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.mist.Logger;
+import com.illuzionzstudios.mist.controller.PluginController;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Scales back the cosmetic work of mining when the server is lagging.
+ * <p>
+ * How long the main thread spends on each tick is averaged from the times
+ * the server keeps of its last 100 ticks. If they can't be found, the time
+ * between ticks is averaged instead, which never drops below 50 even when
+ * the server has time to spare. When the average goes over a threshold the
+ * governor steps up a level, showing fewer animation stages, sending animations
+ * to a smaller radius, spawning fewer break particles and resending fatigue
+ * less often. When the server recovers it steps back down one level at a time.
+ * Break times are never changed
+ */
+public enum GovernorController implements PluginController<CustomMining> {
+    INSTANCE;
+
+    /**
+     * Only every this many damage stages is shown, per level
+     */
+    private static final int[] STAGE_STEP = {1, 2, 3, 5};
+
+    /**
+     * Scale of the broadcast radius, per level
+     */
+    private static final double[] RADIUS_SCALE = {1, 0.75, 0.5, 0.25};
+
+    /**
+     * Particles spawned when a block breaks, per level
+     */
+    private static final int[] PARTICLES = {50, 25, 10, 0};
+
+    /**
+     * Multiplier of the fatigue resync interval, per level
+     */
+    private static final int[] FATIGUE_MULTIPLIER = {1, 2, 4, 8};
+
+    /**
+     * How much the tick time has to drop below a threshold to step down,
+     * so we don't flip between levels
+     */
+    private static final double RECOVER_FACTOR = 0.9;
+
+    /**
+     * Milliseconds between ticks on a server keeping up
+     */
+    private static final double TICK_INTERVAL = 50;
+
+    /**
+     * Lowest threshold used when falling back to the time between ticks,
+     * as that never drops under {@link #TICK_INTERVAL}
+     */
+    private static final double MIN_INTERVAL_THRESHOLD = 55;
+
+    /**
+     * Current degradation level, 0 is full fidelity
+     */
+    @Getter
+    private volatile int level;
+
+    /**
+     * Average milliseconds the main thread spends on a tick
+     */
+    @Getter
+    private volatile double mspt;
+
+    /**
+     * The server's own nanoseconds taken by each of its last ticks,
+     * null if not found
+     */
+    private long[] tickTimes;
+
+    /**
+     * When the last tick was sampled, when falling back to time between ticks
+     */
+    private long lastTick;
+
+    /**
+     * Ticks sampled since the level was last checked
+     */
+    private int samples;
+
+    /**
+     * Task sampling ticks
+     */
+    private BukkitTask sampleTask;
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        this.tickTimes = findTickTimes();
+        if (tickTimes == null) {
+            Logger.severe("Couldn't find the server's tick times, the governor will use the time between ticks instead");
+        }
+
+        this.mspt = tickTimes == null ? TICK_INTERVAL : 0;
+        this.lastTick = System.nanoTime();
+        this.sampleTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sample, 1L, 1L);
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+
+        level = 0;
+        mspt = 0;
+        tickTimes = null;
+    }
+
+    /**
+     * @return Only show damage stages that are a multiple of this
+     */
+    public int getStageStep() {
+        return STAGE_STEP[level];
+    }
+
+    /**
+     * @return Radius break animations are broadcast in
+     */
+    public int getBroadcastRadius() {
+        return (int) (MiningConfig.get().broadcastRadius() * RADIUS_SCALE[level]);
+    }
+
+    /**
+     * @return Particles to spawn when a block breaks
+     */
+    public int getParticles() {
+        return PARTICLES[level];
+    }
+
+    /**
+     * @return Multiplier of the fatigue resync interval
+     */
+    public int getFatigueMultiplier() {
+        return FATIGUE_MULTIPLIER[level];
+    }
+
+    /**
+     * Sample how long ticks are taking. Called every tick on the main thread
+     */
+    private void sample() {
+        if (tickTimes == null) {
+            long now = System.nanoTime();
+            double interval = (now - lastTick) / 1_000_000.0;
+            lastTick = now;
+
+            mspt = mspt * 0.9 + interval * 0.1;
+        }
+
+        // Only change levels once a second
+        if (++samples < 20) return;
+        samples = 0;
+
+        if (tickTimes != null) {
+            long total = 0;
+            for (long time : tickTimes) {
+                total += time;
+            }
+            mspt = total / (double) tickTimes.length / 1_000_000.0;
+        }
+
+        MiningConfig config = MiningConfig.get();
+        if (!config.governor()) {
+            setLevel(0);
+            return;
+        }
+
+        // Levels without a threshold are infinite so never stepped up to
+        if (level < STAGE_STEP.length - 1 && mspt > getThreshold(config, level)) {
+            setLevel(level + 1);
+        } else if (level > 0 && mspt < getRecoverThreshold(config, level - 1)) {
+            setLevel(level - 1);
+        }
+    }
+
+    /**
+     * @return Average tick time over which to step up from a level
+     */
+    private double getThreshold(MiningConfig config, int level) {
+        double threshold = config.governorThreshold(level);
+        return tickTimes == null ? Math.max(threshold, MIN_INTERVAL_THRESHOLD) : threshold;
+    }
+
+    /**
+     * @return Average tick time under which to step back down to a level
+     */
+    private double getRecoverThreshold(MiningConfig config, int level) {
+        double threshold = getThreshold(config, level);
+        if (tickTimes != null) return threshold * RECOVER_FACTOR;
+
+        // Time between ticks sits at 50 when healthy, so recover relative to that
+        return TICK_INTERVAL + (threshold - TICK_INTERVAL) * RECOVER_FACTOR;
+    }
+
+    /**
+     * Find the array the server records the duration of its last 100 ticks in.
+     * Its name changes between versions but it's the only one of its kind
+     *
+     * @return The array, written by the server at the end of each tick
+     */
+    private static long[] findTickTimes() {
+        try {
+            Object server = Bukkit.getServer().getClass().getMethod("getServer").invoke(Bukkit.getServer());
+
+            for (Class<?> type = server.getClass(); type != null; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (field.getType() != long[].class || Modifier.isStatic(field.getModifiers())) continue;
+
+                    field.setAccessible(true);
+                    long[] times = (long[]) field.get(server);
+                    if (times != null && times.length == 100) return times;
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+        }
+
+        return null;
+    }
+
+    private void setLevel(int level) {
+        if (this.level == level) return;
+
+        Logger.info("Server at " + String.format("%.1f", mspt) + "ms per tick, mining " +
+                (level > this.level ? "degraded" : "restored") + " to level " + level +
+                " (stage step " + STAGE_STEP[level] + ", radius x" + RADIUS_SCALE[level] +
+                ", particles " + PARTICLES[level] + ", fatigue resync x" + FATIGUE_MULTIPLIER[level] + ")");
+        this.level = level;
+    }
+}
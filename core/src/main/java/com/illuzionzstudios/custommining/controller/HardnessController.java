@@ -1,9 +1,20 @@
 package com.illuzionzstudios.custommining.controller;
 
 import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.player.PlayerMiningProfile;
+import com.illuzionzstudios.custommining.settings.HardnessOverrides;
+import com.illuzionzstudios.mist.Logger;
 import com.illuzionzstudios.mist.controller.PluginController;
+import lombok.Getter;
 import org.bukkit.block.Block;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Control hardness of blocks, modifiers etc
@@ -21,14 +32,87 @@ import org.bukkit.entity.Player;
 public enum HardnessController implements PluginController<CustomMining> {
     INSTANCE;
 
+    /**
+     * Max amount of break times to remember
+     */
+    private static final int CACHE_SIZE = 4096;
+
+    /**
+     * Break times already worked out, keyed by a packed descriptor
+     * of everything that goes into the calculation. See {@link #getCacheKey}
+     * <p>
+     * Access ordered so the least recently used time is evicted
+     */
+    private final Map<Long, Float> breakTimes = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Float> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Times a break time was found in the cache
+     */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /**
+     * Times a break time had to be calculated
+     */
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * Hardness overrides from {@code overrides.yml}
+     */
+    @Getter
+    private volatile HardnessOverrides overrides = HardnessOverrides.EMPTY;
+
     @Override
     public void initialize(CustomMining plugin) {
+        loadOverrides(plugin);
+    }
+
+    /**
+     * Load and compile {@code overrides.yml}, saving the
+     * default file if it doesn't exist
+     */
+    public void loadOverrides(CustomMining plugin) {
+        File file = new File(plugin.getDataFolder(), "overrides.yml");
+        if (!file.exists()) plugin.saveResource("overrides.yml", false);
+
+        long start = System.nanoTime();
+        this.overrides = HardnessOverrides.compile(YamlConfiguration.loadConfiguration(file).getConfigurationSection("Overrides"));
+        Logger.info("Compiled " + overrides.size() + " hardness overrides in " + (System.nanoTime() - start) / 1_000_000 + "ms");
 
+        invalidateCache();
     }
 
     @Override
     public void stop(CustomMining plugin) {
+        invalidateCache();
+    }
+
+    /**
+     * Forget all cached break times. Called when settings
+     * that affect break times are reloaded
+     */
+    public void invalidateCache() {
+        synchronized (breakTimes) {
+            breakTimes.clear();
+        }
+    }
+
+    /**
+     * @return Times a break time was found in the cache
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
 
+    /**
+     * @return Times a break time had to be calculated
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
     }
 
     /**
@@ -48,36 +132,135 @@ public enum HardnessController implements PluginController<CustomMining> {
      * @return Break time in ticks
      */
     public float processFinalBreakTime(Block block, Player player) {
+        long start = System.nanoTime();
+        try {
+            return lookupBreakTime(block, player);
+        } finally {
+            StatsController.INSTANCE.getBreakTimeCalculation().recordSince(start);
+        }
+    }
+
+    /**
+     * Get the break time from the cache or calculate it
+     */
+    private float lookupBreakTime(Block block, Player player) {
+        // Protected blocks are unbreakable for everyone
+        if (ProtectionController.INSTANCE.isProtected(block)) return -1;
+
+        PlayerMiningProfile profile = ProfileController.INSTANCE.getProfile(player);
+        ItemStack hand = profile.getTool();
+
+        // Everything that goes into the calculation
+        int efficiency = profile.getEfficiencyLevel();
+        int haste = profile.getHasteAmplifier();
+        int fatigue = profile.getFatigueAmplifier();
+        boolean inWater = player.isInWater() && !profile.isAquaAffinity();
+        boolean onGround = player.isOnGround();
+        int tier = profile.getSpeedTier();
+        float speedMultiplier = profile.getSpeedMultiplier();
+        float toolSpeed = profile.getToolSpeed();
+
+        int override = overrides.getOverride(block.getWorld(), block.getType(), block.getY());
+
+        long key = getCacheKey(block, hand, efficiency, haste, fatigue, inWater, onGround, override, tier, toolSpeed);
+
+        // Values too big to pack, or modifiers that depend on more than
+        // the key, are just calculated
+        if (key < 0 || !ModifierController.INSTANCE.isCacheable())
+            return calculateBreakTime(player, block, hand, efficiency, haste, fatigue, inWater, onGround, override, speedMultiplier, toolSpeed);
+
+        synchronized (breakTimes) {
+            Float cached = breakTimes.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+                return cached;
+            }
+        }
+
+        cacheMisses.increment();
+        float breakTime = calculateBreakTime(player, block, hand, efficiency, haste, fatigue, inWater, onGround, override, speedMultiplier, toolSpeed);
+
+        synchronized (breakTimes) {
+            breakTimes.put(key, breakTime);
+        }
+
+        return breakTime;
+    }
+
+    /**
+     * Calculate the break time of a block from scratch
+     *
+     * @param player     The player mining the block
+     * @param block      The block trying to be mined
+     * @param hand       The item being used
+     * @param efficiency Level of efficiency on the item
+     * @param haste      Amplifier of haste, -1 if none
+     * @param fatigue    Amplifier of mining fatigue, -1 if none
+     * @param inWater    If in water without aqua affinity
+     * @param onGround   If the player is on the ground
+     * @param override   Hardness override of the block, 0 if none
+     * @param speedMultiplier Multiplier from the player's permission speed tier
+     * @param toolSpeed  Custom speed stored on the item, 1 if none
+     * @return Break time in ticks
+     */
+    private float calculateBreakTime(Player player, Block block, ItemStack hand, int efficiency, int haste, int fatigue,
+                                     boolean inWater, boolean onGround, int override, float speedMultiplier, float toolSpeed) {
         // Hardness calculations
-        float hardness = MiningController.INSTANCE.getHandler().getDefaultBlockHardness(block);
+        float hardness = overrides.getHardness(override, MiningController.INSTANCE.getHandler().getDefaultBlockHardness(block));
 
         // This is the percent to decrease the time by
         float speed = 1;
 
+        boolean preferredTool = block.isPreferredTool(hand);
+        boolean harvestable = false;
+
         // Multipliers only if tool helps
-        if (block.isPreferredTool(player.getInventory().getItemInMainHand())) {
+        if (preferredTool) {
             // Parse through methods to increase or decrease
-            speed = MiningController.INSTANCE.getHandler().getBaseMultiplier(player.getInventory().getItemInMainHand(), block);
+            speed = MiningController.INSTANCE.getHandler().getBaseMultiplier(hand, block);
             // Only use enchants if can destroy block
-            if (MiningController.INSTANCE.getHandler().canDestroyBlock(player.getInventory().getItemInMainHand(), block))
-                speed = ModifierController.INSTANCE.getEnchantmentModifiers(speed, player);
+            harvestable = MiningController.INSTANCE.getHandler().canDestroyBlock(hand, block);
         }
 
-        // Modifiers that always apply
-        speed = ModifierController.INSTANCE.getPotionModifiers(speed, player);
-
-        // Modifiers for in water (no aqua infinity) and not on ground
-        speed = ModifierController.INSTANCE.getWaterGroundModifiers(speed, player);
+        // Enchants, potions, water and air then custom modifiers
+        speed = ModifierController.INSTANCE.applyModifiers(speed, player, block, hand, efficiency, haste, fatigue,
+                inWater, onGround, preferredTool, harvestable, speedMultiplier, toolSpeed);
 
         // Calculate damage per tick to calculate break
         // (breakSpeed / hardness) * (1 / (doesToolHelp ? 30 : 100))
-        float damagePerTick = (speed / hardness) * (1 / (float) (block.isPreferredTool(player.getInventory().getItemInMainHand()) ? 30 : 100));
+        float damagePerTick = (speed / hardness) * (1 / (float) (preferredTool ? 30 : 100));
 
         // Insta break
         if (damagePerTick > 1)
             return 0;
 
         // Change to ticks
-        return (float) Math.ceil(1.0f / damagePerTick);
+        return (float) Math.ceil(overrides.getMultiplier(override) / damagePerTick);
+    }
+
+    /**
+     * Pack everything that affects a break time into one key.
+     * <p>
+     * Bits from low to high: block material (12), tool material (12),
+     * efficiency (8), haste + 1 (8), fatigue + 1 (8), in water (1), on ground (1),
+     * hardness override (9), permission speed tier (4). Tools with a custom
+     * speed are rare and there are no bits left, so they aren't cached
+     *
+     * @return The key, or -1 if a value is too big to pack
+     */
+    private long getCacheKey(Block block, ItemStack hand, int efficiency, int haste, int fatigue, boolean inWater, boolean onGround, int override, int tier, float toolSpeed) {
+        if (toolSpeed != 1 || efficiency > 0xFF || haste >= 0xFF || fatigue >= 0xFF || override > 0x1FF || tier > 0xF
+                || efficiency < 0 || haste < -1 || fatigue < -1)
+            return -1;
+
+        return (long) block.getType().ordinal()
+                | (long) hand.getType().ordinal() << 12
+                | (long) efficiency << 24
+                | (long) (haste + 1) << 32
+                | (long) (fatigue + 1) << 40
+                | (inWater ? 1L : 0L) << 48
+                | (onGround ? 1L : 0L) << 49
+                | (long) override << 50
+                | (long) tier << 59;
     }
 }
@@ -10,18 +10,24 @@ import com.comphenix.protocol.wrappers.BlockPosition;
 import com.comphenix.protocol.wrappers.EnumWrappers;
 import com.cryptomorin.xseries.XSound;
 import com.illuzionzstudios.custommining.*;
-import com.illuzionzstudios.custommining.settings.Settings;
+import com.illuzionzstudios.custommining.player.DormantProgress;
+import com.illuzionzstudios.custommining.player.MiningSession;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.custommining.task.DigQueue;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.custommining.task.MiningRegistry;
 import com.illuzionzstudios.custommining.task.MiningTask;
+import com.illuzionzstudios.custommining.task.SharedMiningTask;
+import com.illuzionzstudios.custommining.util.BlockKey;
 import com.illuzionzstudios.mist.Logger;
 import com.illuzionzstudios.mist.compatibility.ServerVersion;
 import com.illuzionzstudios.mist.controller.PluginController;
 import com.illuzionzstudios.mist.scheduler.MinecraftScheduler;
-import com.illuzionzstudios.mist.scheduler.rate.Async;
-import com.illuzionzstudios.mist.scheduler.rate.Rate;
 import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.ExperienceOrb;
@@ -33,12 +39,14 @@ import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemDamageEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
-import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is the core class that handles the full mining system.
@@ -55,28 +63,42 @@ public enum MiningController implements PluginController<CustomMining>, Listener
     @Getter
     private MiningHandler handler;
 
-    /**
-     * Scheduler for block breaking
-     */
-    private BukkitScheduler scheduler;
-
     /**
      * Here we handle all instances of players breaking blocks
-     * Tasks will be run async and only do sync tasks like
+     * Tasks are ticked async by the {@link MiningEngine} and only do sync tasks like
      * breaking blocks when needed to avoid as much lag
      * as possible
      * <p>
+     * Indexed by block position so can be touched from any thread
+     * <p>
      * Transient because we don't want to save, it's all cached
      */
-    private transient Map<UUID, ArrayList<MiningTask>> miningTasks;
+    @Getter
+    private transient MiningRegistry miningTasks;
 
     /**
-     * List of player's who currently can't tick
-     * {@link MiningTask}'s. Used if the player triggered one
-     * accidentally or can't mine that block.
+     * Mining state of each online player. Holds if they can currently
+     * tick {@link MiningTask}'s and what they're targeting
      */
-    @Getter
-    private List<UUID> disabled;
+    private final Map<UUID, MiningSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Players whose digs are read straight from their connection.
+     * ProtocolLib skips these so digs aren't handled twice
+     */
+    private final Set<UUID> intercepted = ConcurrentHashMap.newKeySet();
+
+    /**
+     * If the ProtocolLib dig listener has been registered
+     */
+    private boolean protocolsRegistered;
+
+    /**
+     * If digs are read from connections, chosen on startup. Reloading
+     * the setting doesn't change it as the ProtocolLib listener may
+     * never have been registered
+     */
+    private boolean interceptDigs;
 
     @Override
     public void initialize(CustomMining plugin) {
@@ -100,38 +122,77 @@ public enum MiningController implements PluginController<CustomMining>, Listener
             return;
         }
 
-        this.miningTasks = new HashMap<>();
-        this.disabled = new ArrayList<>();
+        // Build hardness and tool lookups up front so mining only reads arrays
+        long start = System.nanoTime();
+        handler.loadTables();
+        Logger.info("Built material tables in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        this.miningTasks = new MiningRegistry();
 
         // Register our services
         Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
         MinecraftScheduler.get().registerSynchronizationService(this);
 
-        registerProtocols();
-        scheduler = plugin.getServer().getScheduler();
+        this.interceptDigs = MiningConfig.get().nettyInterceptor();
+        if (interceptDigs) {
+            // Players already online on reload
+            Bukkit.getOnlinePlayers().forEach(this::intercept);
+        } else {
+            registerProtocols();
+        }
     }
 
     @Override
     public void stop(CustomMining plugin) {
+        // Our handlers would outlive the plugin on a reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (intercepted.remove(player.getUniqueId())) handler.uninjectDigInterceptor(player);
+        }
+        intercepted.clear();
+
         miningTasks.clear();
+        sessions.clear();
     }
 
     /**
-     * Handle cleanup so no memory leaks
+     * Get the mining session of a player, creating it if needed
+     *
+     * @param player The player to get the session for
+     * @return The player's session
      */
-    @EventHandler
-    public void onLeave(PlayerQuitEvent event) {
-        miningTasks.remove(event.getPlayer().getUniqueId());
+    public MiningSession getSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), uuid -> new MiningSession(player));
     }
 
     /**
-     * Update players with mining fatigue
+     * Get the mining session of a player without creating one. Used off the
+     * main thread where the player may have already left
+     *
+     * @param uuid UUID of the player
+     * @return The player's session, or null if they have none
      */
-    @Async(rate = Rate.FASTEST)
-    public void giveEffect() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            handler.cancelClientBreaking(player);
-        }
+    @Nullable
+    public MiningSession findSession(UUID uuid) {
+        return sessions.get(uuid);
+    }
+
+    /**
+     * Read the player's digs from their connection if enabled
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        if (interceptDigs) intercept(event.getPlayer());
+    }
+
+    /**
+     * Handle cleanup so no memory leaks
+     */
+    @EventHandler
+    public void onLeave(PlayerQuitEvent event) {
+        intercepted.remove(event.getPlayer().getUniqueId());
+        miningTasks.removePlayer(event.getPlayer().getUniqueId()).forEach(MiningEngine.INSTANCE::cancel);
+        MiningSession session = sessions.remove(event.getPlayer().getUniqueId());
+        if (session != null) session.getDormant().clear();
     }
 
     /**
@@ -159,60 +220,90 @@ public enum MiningController implements PluginController<CustomMining>, Listener
             // Cancel as we will handle ourselves
             event.setCancelled(true);
 
-            // About to create new task make sure
-            // to remove disabled
-            this.disabled.remove(player.getUniqueId());
-
             // Our block that was clicked
             Block block = event.getClickedBlock();
 
+            // Digging is enabled by the start dig packet so it's
+            // processed in order with the player's other digs
+            MiningSession session = getSession(player);
+            session.setTargetWorld(block.getWorld());
+            session.setTarget(BlockKey.of(block));
+
             // Here handle the break time based on conditions
 
             // Here break time is 0, so we just insta break
             // Also check default block hardness because can't change
             // break time of default insta breaks
-            if ((HardnessController.INSTANCE.processFinalBreakTime(block, player) >= 0 &&
-                    HardnessController.INSTANCE.processFinalBreakTime(block, player) <= 0.05) ||
-                    handler.getDefaultBlockHardness(block) == 0.0) {
+            float breakTime = HardnessController.INSTANCE.processFinalBreakTime(block, player);
+
+            // Unbreakable so there's nothing to track. Checked first
+            // so overrides and regions can stop insta breaks
+            if (breakTime < 0) return;
+
+            if (breakTime <= 0.05 || handler.getDefaultBlockHardness(block) == 0.0) {
                 breakBlock(player, block);
                 return;
             }
 
+            // Everyone adds to one task on the block
+            MiningConfig config = MiningConfig.get();
+            if (config.sharedProgress()) {
+                session.setCurrentTask(joinShared(player, block, breakTime));
+                return;
+            }
+
             MiningTask previous = null;
 
             // Detect if the block was being mined, so resume it
             // only if set in settings
-            if (Settings.MINING_SAVE_PROGRESS.getBoolean()) {
-                previous = resumeBreaking(player, block);
+            if (config.saveProgress()) {
+                previous = resumeBreaking(player, block, breakTime);
+                session.setCurrentTask(previous);
             }
 
-            // If there is no previously targeted block or if the currently targeted block isn't the same
-            // as the previous then destroying the new block
-            if (previous == null || !previous.getBlock().getLocation().equals(block.getLocation())) {
-                // The player has switched targets so the previous block is no longer being destroyed
-                if (previous != null) {
-                    previous.setEnabled(false);
-                }
-
+            // If there is no previously targeted block then start destroying the new block
+            if (previous == null) {
                 // Create new instance of block breaking runnable
-                MiningTask task = new MiningTask(player, block, HardnessController.INSTANCE.processFinalBreakTime(block, player));
+                MiningTask task = new MiningTask(player, block, breakTime);
+
+                // Here we add the breaking to the tasks
+                miningTasks.register(task);
+                session.setCurrentTask(task);
 
                 // Do task async, will handle minecraft things sync
-                int taskID = scheduler.scheduleAsyncRepeatingTask(CustomMining.getInstance(), task, 0L, 1L);
-                task.setTaskID(taskID);
+                MiningEngine.INSTANCE.submit(task);
+            }
 
-                // Here we add the breaking to the tasks
-                ArrayList<MiningTask> list = new ArrayList<>();
+        }
+    }
 
-                if (miningTasks.containsKey(player.getUniqueId())) {
-                    list = miningTasks.get(player.getUniqueId());
-                }
+    /**
+     * Add a player to the shared task of a block,
+     * starting one if nobody is mining it
+     *
+     * @param player    The player mining the block
+     * @param block     The block being mined
+     * @param breakTime Ticks it would take the player alone
+     * @return The shared task
+     */
+    private SharedMiningTask joinShared(Player player, Block block, float breakTime) {
+        World world = block.getWorld();
+        long key = BlockKey.of(block);
 
-                list.add(task);
-                miningTasks.put(player.getUniqueId(), list);
-            }
+        SharedMiningTask task = miningTasks.get(null, world, key) instanceof SharedMiningTask shared ? shared : null;
+        if (task == null) {
+            task = new SharedMiningTask(block);
+
+            // Carry on from before a restart if saved
+            float percent = PersistenceController.INSTANCE.getProgress(world, key);
+            if (percent > 0) task.setPercent(percent);
 
+            miningTasks.register(task);
+            MiningEngine.INSTANCE.submit(task);
         }
+
+        task.join(player, breakTime);
+        return task;
     }
 
     /**
@@ -224,25 +315,50 @@ public enum MiningController implements PluginController<CustomMining>, Listener
      * @param block  The block that was being broken
      */
     public void pauseBreaking(Player player, Block block) {
+        pauseBreaking(player, block.getWorld(), BlockKey.of(block));
+    }
+
+    /**
+     * Pause the breaking animation of a block
+     * for a player breaking it
+     * <p>
+     * The task is stopped and it's progress kept in the player's
+     * {@link com.illuzionzstudios.custommining.player.DormantProgress}
+     * so nothing ticks until they resume or it expires
+     *
+     * @param player The player breaking the block
+     * @param world  World the block is in
+     * @param key    Packed position of the block, see {@link BlockKey}
+     */
+    public void pauseBreaking(Player player, World world, long key) {
+        // Shared blocks keep going while anyone else is digging
+        if (miningTasks.get(null, world, key) instanceof SharedMiningTask) return;
+
         // If they don't save progress just delete the task
-        if (!Settings.MINING_SAVE_PROGRESS.getBoolean()) {
-            cancelBreaking(block);
+        MiningConfig config = MiningConfig.get();
+        if (!config.saveProgress()) {
+            cancelBreaking(world, key);
             return;
         }
 
-        if (!miningTasks.containsKey(player.getUniqueId())) return;
-        miningTasks.get(player.getUniqueId()).forEach(task -> {
-            // If task doesn't exist
-            if (task == null) {
-                // Abort all tasks
-                miningTasks.remove(player.getUniqueId());
-                return;
-            }
+        MiningTask task = miningTasks.get(player, world, key);
+        if (task == null) return;
 
-            if (task.getBlock().getLocation().equals(block.getLocation())) {
-                task.setEnabled(false);
-            }
-        });
+        MiningSession session = task.getSession();
+        if (session == null) {
+            task.setEnabled(false);
+            return;
+        }
+
+        // Stop the task and keep only it's progress
+        miningTasks.remove(task);
+        MiningEngine.INSTANCE.cancel(task);
+        if (session.getCurrentTask() == task) session.setCurrentTask(null);
+
+        long tick = MiningEngine.INSTANCE.getCurrentTick();
+        session.getDormant().put(world, key, task.getPercent(), tick);
+        PersistenceController.INSTANCE.setProgress(world, key, task.getPercent());
+        MiningEngine.INSTANCE.getDormantWheel().schedule(session, world, key, tick, config.cleanupDelayTicks() / 20);
     }
 
     /**
@@ -253,19 +369,78 @@ public enum MiningController implements PluginController<CustomMining>, Listener
      * @param block  The block that was being broken
      */
     public MiningTask resumeBreaking(Player player, Block block) {
-        if (miningTasks.containsKey(player.getUniqueId())) {
-            for (MiningTask task : miningTasks.get(player.getUniqueId())) {
-                if (task.getBlock().getLocation().equals(block.getLocation())) {
-                    // Make sure to update break time
-                    // if tool switched etc
-                    task.setBreakTime(HardnessController.INSTANCE.processFinalBreakTime(block, player));
-                    task.setEnabled(true);
-                    return task;
-                }
-            }
+        return resumeBreaking(player, block, HardnessController.INSTANCE.processFinalBreakTime(block, player));
+    }
+
+    /**
+     * Resume breaking of a block that was
+     * being mined by the player
+     *
+     * @param player    The player that was mining the block
+     * @param block     The block that was being broken
+     * @param breakTime The current break time of the block for the player
+     */
+    public MiningTask resumeBreaking(Player player, Block block, float breakTime) {
+        MiningTask task = miningTasks.get(player, block.getWorld(), BlockKey.of(block));
+        if (task != null) {
+            // Make sure to update break time
+            // if tool switched etc
+            task.setBreakTime(breakTime);
+            task.setEnabled(true);
+            return task;
         }
 
-        return null;
+        // Bring back a task from paused progress, or
+        // progress saved before a restart or chunk unload
+        float percent = getSession(player).getDormant().take(block.getWorld(), BlockKey.of(block));
+        if (percent < 0) percent = PersistenceController.INSTANCE.getProgress(block.getWorld(), BlockKey.of(block));
+        if (percent < 0) return null;
+
+        task = new MiningTask(player, block, breakTime);
+        task.setPercent(percent);
+        miningTasks.register(task);
+        MiningEngine.INSTANCE.submit(task);
+        return task;
+    }
+
+    /**
+     * Call the consumer with the paused progress of every player
+     */
+    public void forEachDormant(DormantProgress.ProgressConsumer consumer) {
+        for (MiningSession session : sessions.values()) {
+            session.getDormant().forEach(consumer);
+        }
+    }
+
+    /**
+     * Check if a block has progress kept for a player, or any player
+     *
+     * @param world  World the block is in
+     * @param key    Packed position of the block
+     * @param player Player to check, or null for anyone
+     * @return If the progress is kept
+     */
+    public boolean hasDormant(World world, long key, @Nullable Player player) {
+        if (player != null) {
+            MiningSession session = findSession(player.getUniqueId());
+            return session != null && session.getDormant().contains(world, key);
+        }
+
+        for (MiningSession session : sessions.values()) {
+            if (session.getDormant().contains(world, key)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Amount of blocks with paused progress across all players
+     */
+    public int getDormantCount() {
+        int count = 0;
+        for (MiningSession session : sessions.values()) {
+            count += session.getDormant().size();
+        }
+        return count;
     }
 
     /**
@@ -276,37 +451,26 @@ public enum MiningController implements PluginController<CustomMining>, Listener
      * @param block Block to stop the task for
      */
     public void cancelBreaking(Block block) {
-        try {
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                if (miningTasks.containsKey(player.getUniqueId())) {
-                    ArrayList<MiningTask> list = miningTasks.get(player.getUniqueId());
-
-                    // Only need the first as we can't have two tasks at the same location
-                    Optional<MiningTask> taskStream = list.stream().filter(miningTask -> miningTask.getBlock().getLocation().equals(block.getLocation())).findFirst();
-
-                    // If no task simply return because we don't need to do anything else
-                    if (taskStream.isEmpty()) return;
-
-                    // Finally assign found task to our instanced task
-                    MiningTask task = taskStream.get();
-
-                    // Cancel mining task
-                    scheduler.cancelTask(task.getTaskID());
-                    // Remove task from player's running tasks
-                    list.remove(task);
-                    // Send final animation
-                    handler.sendBlockBreak(block, 10, Settings.MINING_BROADCAST_ANIMATION.getBoolean() ? new ArrayList<>(Bukkit.getOnlinePlayers()) : Collections.singletonList(player));
-                    if (list.isEmpty()) {
-                        // No more mining tasks so remove from map
-                        miningTasks.remove(player.getUniqueId());
-                    } else {
-                        // Otherwise just update map with one less task
-                        miningTasks.put(player.getUniqueId(), list);
-                    }
-                }
-            }
-        } catch (Exception ignored) {
-            // Sometimes random error with accessing list
+        cancelBreaking(block.getWorld(), BlockKey.of(block));
+    }
+
+    /**
+     * Cancel the breaking of a block for all
+     * players and remove the tasks
+     *
+     * @param world World the block is in
+     * @param key   Packed position of the block, see {@link BlockKey}
+     */
+    public void cancelBreaking(World world, long key) {
+        PersistenceController.INSTANCE.removeProgress(world, key);
+
+        for (MiningTask task = miningTasks.removeAll(world, key); task != null; task = task.getNextAtPosition()) {
+            // Cancel mining task
+            MiningEngine.INSTANCE.cancel(task);
+            if (task.getSession() != null && task.getSession().getCurrentTask() == task)
+                task.getSession().setCurrentTask(null);
+            // Send final animation
+            AnimationController.INSTANCE.queue(task.getBlock(), 10, MiningConfig.get().broadcastAnimation() ? null : task.getPlayer());
         }
     }
 
@@ -318,15 +482,25 @@ public enum MiningController implements PluginController<CustomMining>, Listener
      * @param block  The block that was broken
      */
     public void breakBlock(Player player, Block block) {
+        long start = System.nanoTime();
+        try {
+            doBreakBlock(player, block);
+        } finally {
+            StatsController.INSTANCE.getBreakBlockTime().recordSince(start);
+            StatsController.INSTANCE.countBreak();
+        }
+    }
+
+    private void doBreakBlock(Player player, Block block) {
         // Make sure to cancel tasks when breaking any block
         cancelBreaking(block);
 
         // Block break effect
-        handler.playBreakEffect(block);
+        handler.playBreakEffect(block, GovernorController.INSTANCE.getParticles());
 
         ItemStack hand = player.getInventory().getItemInMainHand();
         // Use durability on item (account for unbreaking)
-        int durabilityLevel = hand.getEnchantmentLevel(Enchantment.DURABILITY);
+        int durabilityLevel = ProfileController.INSTANCE.getProfile(player).getUnbreakingLevel();
         if (Math.random() <= (1 / (float) (durabilityLevel + 1))) {
             // Has durability
             if (hand.getType().getMaxDurability() > 0) {
@@ -354,32 +528,66 @@ public enum MiningController implements PluginController<CustomMining>, Listener
     public void onDurabilityChange(PlayerItemDamageEvent event) {
         if (event.getItem().getDurability() - event.getDamage() >= event.getItem().getType().getMaxDurability() - 1) {
             event.getPlayer().getInventory().setItemInMainHand(new ItemStack(Material.AIR));
+            ProfileController.INSTANCE.invalidate(event.getPlayer());
             XSound.ENTITY_ITEM_BREAK.play(event.getPlayer());
         }
     }
 
+    /**
+     * Add our dig handler to a player's connection. If it can't be added
+     * their digs are read through ProtocolLib instead
+     *
+     * @param player The player to intercept
+     */
+    private void intercept(Player player) {
+        if (handler.injectDigInterceptor(player, MiningEngine.INSTANCE.getDigQueue())) {
+            intercepted.add(player.getUniqueId());
+            return;
+        }
+
+        Logger.info("Couldn't intercept digs for " + player.getName() + ", falling back to ProtocolLib");
+        registerProtocols();
+    }
+
+    /**
+     * @return Amount of players whose digs are read from their connection
+     */
+    public int getInterceptedCount() {
+        return intercepted.size();
+    }
+
     /**
      * Registers protocols through ProtocolLib to cancel block breaking while looking away
+     * <p>
+     * Runs on network threads so only decodes the packet and hands
+     * it to the {@link MiningEngine} to process on it's next tick.
+     * Only registered once, and players with a dig interceptor are skipped
      */
     public void registerProtocols() {
+        if (protocolsRegistered) return;
+        protocolsRegistered = true;
+
         ProtocolLibrary.getProtocolManager().addPacketListener(new PacketAdapter(CustomMining.getInstance(), ListenerPriority.NORMAL, PacketType.Play.Client.BLOCK_DIG) {
             @Override
             public void onPacketReceiving(PacketEvent event) {
-                PacketContainer packet = event.getPacket();
-                EnumWrappers.PlayerDigType digType = packet.getPlayerDigTypes().getValues().get(0);
-                if (digType.equals(EnumWrappers.PlayerDigType.ABORT_DESTROY_BLOCK) ||
-                        digType.equals(EnumWrappers.PlayerDigType.STOP_DESTROY_BLOCK)) {
+                if (intercepted.contains(event.getPlayer().getUniqueId())) return;
 
-                    // Loop through abandoned blocks and make sure to stop them all
-                    for (BlockPosition position : packet.getBlockPositionModifier().getValues()) {
-                        Block createdBlock = event.getPlayer().getWorld().getBlockAt(position.getX(), position.getY(), position.getZ());
-
-                        pauseBreaking(event.getPlayer(), createdBlock);
-                    }
-
-                    // Disable ticking tasks
-                    getDisabled().add(event.getPlayer().getUniqueId());
+                PacketContainer packet = event.getPacket();
+                EnumWrappers.PlayerDigType digType = packet.getPlayerDigTypes().read(0);
+
+                int type;
+                if (digType == EnumWrappers.PlayerDigType.START_DESTROY_BLOCK) {
+                    type = DigQueue.START;
+                } else if (digType == EnumWrappers.PlayerDigType.ABORT_DESTROY_BLOCK) {
+                    type = DigQueue.ABORT;
+                } else if (digType == EnumWrappers.PlayerDigType.STOP_DESTROY_BLOCK) {
+                    type = DigQueue.STOP;
+                } else {
+                    return;
                 }
+
+                BlockPosition position = packet.getBlockPositionModifier().read(0);
+                MiningEngine.INSTANCE.getDigQueue().offer(event.getPlayer(), type, position.getX(), position.getY(), position.getZ());
             }
         });
     }
@@ -1,13 +1,19 @@
 package com.illuzionzstudios.custommining.controller;
 
 import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.modifier.MiningModifier;
+import com.illuzionzstudios.custommining.modifier.ModifierContext;
+import com.illuzionzstudios.custommining.player.PlayerMiningProfile;
+import com.illuzionzstudios.custommining.settings.Settings;
 import com.illuzionzstudios.mist.controller.PluginController;
+import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.potion.PotionEffect;
-import org.bukkit.potion.PotionEffectType;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Controller for modifier on blocks. This could be enchants,
@@ -15,19 +21,190 @@ import org.bukkit.potion.PotionEffectType;
  * <p>
  * All will be passed to master break time method to handle the final
  * break time there.
+ * <p>
+ * Modifiers, vanilla ones included, are {@link MiningModifier}'s sorted
+ * by priority into an array whenever one is registered, so working out
+ * a speed is one loop over the array. In debug mode each modifier is timed
  */
 public enum ModifierController implements PluginController<CustomMining> {
 
     INSTANCE;
 
+    /**
+     * Priorities of the built in modifiers
+     */
+    public static final int TOOL_PRIORITY = 50;
+    public static final int EFFICIENCY_PRIORITY = 100;
+    public static final int HASTE_PRIORITY = 200;
+    public static final int FATIGUE_PRIORITY = 300;
+    public static final int LIQUID_PRIORITY = 400;
+    public static final int AIR_PRIORITY = 500;
+    public static final int PERMISSION_PRIORITY = 600;
+
+    /**
+     * Context filled in for each calculation, one per thread
+     */
+    private static final ThreadLocal<ModifierContext> CONTEXT = ThreadLocal.withInitial(ModifierContext::new);
+
+    /**
+     * Multipliers on speed in water and in the air
+     */
+    private volatile float liquidMultiplier = 0.2f;
+    private volatile float airMultiplier = 0.2f;
+
+    /**
+     * Every modifier registered, in order of registration
+     */
+    private final List<MiningModifier> registered = new ArrayList<>(List.of(
+            new Vanilla("Tool", TOOL_PRIORITY, (speed, context) -> speed * context.getToolSpeed()),
+            new Vanilla("Efficiency", EFFICIENCY_PRIORITY, (speed, context) -> context.isPreferredTool() && context.isHarvestable()
+                    ? getEnchantmentModifiers(speed, context.getEfficiency()) : speed),
+            new Vanilla("Haste", HASTE_PRIORITY, (speed, context) -> getHasteModifier(speed, context.getHaste())),
+            new Vanilla("Fatigue", FATIGUE_PRIORITY, (speed, context) -> getFatigueModifier(speed, context.getFatigue())),
+            new Vanilla("Liquid", LIQUID_PRIORITY, (speed, context) -> context.isInWater() ? speed * liquidMultiplier : speed),
+            new Vanilla("Air", AIR_PRIORITY, (speed, context) -> context.isOnGround() ? speed : speed * airMultiplier),
+            new Vanilla("Permission", PERMISSION_PRIORITY, (speed, context) -> speed * context.getSpeedMultiplier())));
+
+    /**
+     * Modifiers compiled for running
+     */
+    private volatile Chain chain = new Chain(registered.toArray(new MiningModifier[0]), false);
+
     @Override
     public void initialize(CustomMining customMining) {
+        loadSettings();
     }
 
     @Override
     public void stop(CustomMining customMining) {
     }
 
+    /**
+     * Read modifier settings and recompile. Called on reload
+     */
+    public void loadSettings() {
+        this.liquidMultiplier = toMultiplier(Settings.MODIFIER_LIQUID.getDouble());
+        this.airMultiplier = toMultiplier(Settings.MODIFIER_AIR.getDouble());
+        compile();
+    }
+
+    /**
+     * Add a modifier to every break time calculation
+     *
+     * @param modifier The modifier to add
+     */
+    public void register(MiningModifier modifier) {
+        synchronized (registered) {
+            registered.add(modifier);
+            compile();
+        }
+    }
+
+    /**
+     * Remove a modifier added with {@link #register}
+     *
+     * @param modifier The modifier to remove
+     */
+    public void unregister(MiningModifier modifier) {
+        synchronized (registered) {
+            registered.remove(modifier);
+            compile();
+        }
+    }
+
+    /**
+     * @return If break times can currently be cached
+     */
+    public boolean isCacheable() {
+        return chain.cacheable;
+    }
+
+    /**
+     * Run every modifier in order
+     *
+     * @param speed         Speed of the tool
+     * @param player        The player mining
+     * @param block         The block being mined
+     * @param tool          The item being used
+     * @param efficiency    Level of efficiency on the tool
+     * @param haste         Amplifier of haste, -1 if none
+     * @param fatigue       Amplifier of mining fatigue, -1 if none
+     * @param inWater       If in water without aqua affinity
+     * @param onGround      If the player is on the ground
+     * @param preferredTool If the tool helps break the block
+     * @param harvestable   If the tool can harvest the block
+     * @param speedMultiplier Multiplier from the player's permission speed tier
+     * @param toolSpeed     Custom speed stored on the tool, 1 if none
+     * @return The final speed
+     */
+    public float applyModifiers(float speed, Player player, Block block, ItemStack tool, int efficiency, int haste, int fatigue,
+                                boolean inWater, boolean onGround, boolean preferredTool, boolean harvestable, float speedMultiplier, float toolSpeed) {
+        ModifierContext context = CONTEXT.get();
+        context.set(player, block, tool, efficiency, haste, fatigue, inWater, onGround, preferredTool, harvestable, speedMultiplier, toolSpeed);
+
+        Chain chain = this.chain;
+        MiningModifier[] modifiers = chain.modifiers;
+        try {
+            if (chain.time == null) {
+                for (int i = 0; i < modifiers.length; i++) {
+                    speed = modifiers[i].modify(speed, context);
+                }
+            } else {
+                for (int i = 0; i < modifiers.length; i++) {
+                    long start = System.nanoTime();
+                    speed = modifiers[i].modify(speed, context);
+                    chain.time[i].add(System.nanoTime() - start);
+                    chain.calls[i].increment();
+                }
+            }
+        } finally {
+            context.clear();
+        }
+
+        return speed;
+    }
+
+    /**
+     * @return How long each modifier takes, empty unless in debug mode
+     */
+    public List<String> getTimings() {
+        Chain chain = this.chain;
+        List<String> lines = new ArrayList<>();
+        if (chain.time == null) return lines;
+
+        for (int i = 0; i < chain.modifiers.length; i++) {
+            long calls = chain.calls[i].sum();
+            double average = calls == 0 ? 0 : chain.time[i].sum() / (double) calls;
+            lines.add("Modifier " + chain.modifiers[i].getName() + ": " + calls + " calls, "
+                    + String.format(Locale.ROOT, "%.0f", average) + "ns average");
+        }
+        return lines;
+    }
+
+    /**
+     * Sort the registered modifiers into a new chain
+     */
+    private void compile() {
+        synchronized (registered) {
+            MiningModifier[] modifiers = registered.toArray(new MiningModifier[0]);
+            // Stable so equal priorities run in order of registration
+            Arrays.sort(modifiers, Comparator.comparingInt(MiningModifier::getPriority));
+            this.chain = new Chain(modifiers, Settings.DEBUG.getBoolean());
+        }
+
+        // Modifiers changed so cached times may be wrong
+        HardnessController.INSTANCE.invalidateCache();
+    }
+
+    /**
+     * Turn a config modifier into a multiplier.
+     * Negative values divide, so -5 is a fifth of the speed
+     */
+    private static float toMultiplier(double modifier) {
+        if (modifier == 0) return 1;
+        return (float) (modifier < 0 ? 1 / -modifier : modifier);
+    }
+
     /**
      * Get modifiers for item enchantments. Will already be checked if is best tool
      *
@@ -36,10 +213,18 @@ public enum ModifierController implements PluginController<CustomMining> {
      * @return Modifiers from enchant if tool helps
      */
     public float getEnchantmentModifiers(float modifier, Player player) {
-        ItemStack heldItem = player.getInventory().getItemInMainHand();
         // Level of efficiency for modifier checks
-        int efficiencyLevel = heldItem.getEnchantmentLevel(Enchantment.DIG_SPEED);
+        return getEnchantmentModifiers(modifier, ProfileController.INSTANCE.getProfile(player).getEfficiencyLevel());
+    }
 
+    /**
+     * Get modifiers for the efficiency level of the tool
+     *
+     * @param modifier        The base modifier already
+     * @param efficiencyLevel Level of efficiency on the tool
+     * @return Modifiers from enchant if tool helps
+     */
+    public float getEnchantmentModifiers(float modifier, int efficiencyLevel) {
         // If no level, no modifier
         if (efficiencyLevel <= 0) return modifier;
 
@@ -59,34 +244,52 @@ public enum ModifierController implements PluginController<CustomMining> {
      */
     public float getPotionModifiers(float modifier, Player player) {
         // Potions to check
-        PotionEffect haste = player.getPotionEffect(PotionEffectType.FAST_DIGGING);
-        PotionEffect fatigue = player.getPotionEffect(PotionEffectType.SLOW_DIGGING);
+        PlayerMiningProfile profile = ProfileController.INSTANCE.getProfile(player);
+        return getPotionModifiers(modifier, profile.getHasteAmplifier(), profile.getFatigueAmplifier());
+    }
 
-        // Haste check
-        if (haste != null) {
-            int level = haste.getAmplifier();
+    /**
+     * Get modifiers for dig potion effects
+     *
+     * @param modifier The base modifier
+     * @param haste    Amplifier of haste, -1 if none
+     * @param fatigue  Amplifier of mining fatigue, -1 if none
+     * @return Modifiers from potion effects
+     */
+    public float getPotionModifiers(float modifier, int haste, int fatigue) {
+        return getFatigueModifier(getHasteModifier(modifier, haste), fatigue);
+    }
 
-            // Formula
-            modifier *= 1 + (0.2 * level);
-        }
+    /**
+     * @param modifier The base modifier
+     * @param haste    Amplifier of haste, -1 if none
+     * @return Modifier from haste
+     */
+    public float getHasteModifier(float modifier, int haste) {
+        if (haste < 0) return modifier;
 
-        // Fatigue check
-        if (fatigue != null) {
-            int level = fatigue.getAmplifier();
-
-            switch (level) {
-                case 1:
-                    modifier *= 0.3;
-                case 2:
-                    modifier *= 0.09;
-                case 3:
-                    modifier *= 0.0027;
-                default:
-                    modifier *= 0.00081;
-            }
-        }
+        // Formula, level is one more than the amplifier
+        return modifier * (float) (1 + (0.2 * (haste + 1)));
+    }
 
-        return modifier;
+    /**
+     * @param modifier The base modifier
+     * @param fatigue  Amplifier of mining fatigue, -1 if none
+     * @return Modifier from mining fatigue
+     */
+    public float getFatigueModifier(float modifier, int fatigue) {
+        switch (fatigue) {
+            case -1:
+                return modifier;
+            case 0:
+                return modifier * 0.3f;
+            case 1:
+                return modifier * 0.09f;
+            case 2:
+                return modifier * 0.0027f;
+            default:
+                return modifier * 0.00081f;
+        }
     }
 
     /**
@@ -99,12 +302,25 @@ public enum ModifierController implements PluginController<CustomMining> {
      */
     public float getWaterGroundModifiers(float modifier, Player player) {
         // If in water and no aqua infinity
-        if (player.isInWater() && !armourContainsEnchant(player, Enchantment.WATER_WORKER))
-            modifier /= 5;
+        return getWaterGroundModifiers(modifier, player.isInWater() && !ProfileController.INSTANCE.getProfile(player).isAquaAffinity(), player.isOnGround());
+    }
+
+    /**
+     * Get modifiers for positioning
+     *
+     * @param modifier The base modifier
+     * @param inWater  If in water without aqua affinity
+     * @param onGround If the player is on the ground
+     * @return Modifiers from positioning
+     */
+    public float getWaterGroundModifiers(float modifier, boolean inWater, boolean onGround) {
+        // If in water and no aqua infinity
+        if (inWater)
+            modifier *= liquidMultiplier;
 
         // If isn't on ground
-        if (!player.isOnGround())
-            modifier /= 5;
+        if (!onGround)
+            modifier *= airMultiplier;
 
         return modifier;
     }
@@ -119,11 +335,95 @@ public enum ModifierController implements PluginController<CustomMining> {
     public boolean armourContainsEnchant(Player player, Enchantment enchantment) {
         EntityEquipment equipment = player.getEquipment();
 
-        boolean helmetContains = equipment.getHelmet() != null && equipment.getHelmet().containsEnchantment(enchantment);
-        boolean chestplateContains = equipment.getChestplate() != null && equipment.getHelmet().containsEnchantment(enchantment);
-        boolean leggingsContains = equipment.getLeggings() != null && equipment.getHelmet().containsEnchantment(enchantment);
-        boolean bootsContains = equipment.getHelmet() != null && equipment.getHelmet().containsEnchantment(enchantment);
+        if (equipment == null) return false;
+
+        // One pass over the armour slots
+        for (ItemStack armour : equipment.getArmorContents()) {
+            if (armour != null && armour.containsEnchantment(enchantment)) return true;
+        }
+
+        return false;
+    }
 
-        return helmetContains || chestplateContains || leggingsContains || bootsContains;
+    /**
+     * Modifiers sorted for running, with timings in debug mode
+     */
+    private static final class Chain {
+
+        private final MiningModifier[] modifiers;
+
+        /**
+         * If every modifier is cacheable
+         */
+        private final boolean cacheable;
+
+        /**
+         * Nanoseconds spent in and calls to each modifier, null if not timing
+         */
+        private final LongAdder[] time;
+        private final LongAdder[] calls;
+
+        private Chain(MiningModifier[] modifiers, boolean timed) {
+            this.modifiers = modifiers;
+
+            boolean cacheable = true;
+            for (MiningModifier modifier : modifiers) {
+                cacheable &= modifier.isCacheable();
+            }
+            this.cacheable = cacheable;
+
+            this.time = timed ? new LongAdder[modifiers.length] : null;
+            this.calls = timed ? new LongAdder[modifiers.length] : null;
+            for (int i = 0; timed && i < modifiers.length; i++) {
+                time[i] = new LongAdder();
+                calls[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * A built in modifier. Only depends on what's in the break time cache key
+     */
+    private static final class Vanilla implements MiningModifier {
+
+        private final String name;
+
+        private final int priority;
+
+        private final Modify modify;
+
+        private Vanilla(String name, int priority, Modify modify) {
+            this.name = name;
+            this.priority = priority;
+            this.modify = modify;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return true;
+        }
+
+        @Override
+        public float modify(float speed, ModifierContext context) {
+            return modify.modify(speed, context);
+        }
+    }
+
+    /**
+     * Body of a vanilla modifier, primitive so nothing is boxed
+     */
+    @FunctionalInterface
+    private interface Modify {
+        float modify(float speed, ModifierContext context);
     }
 }
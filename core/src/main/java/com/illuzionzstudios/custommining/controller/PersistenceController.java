@@ -0,0 +1,270 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.custommining.settings.Settings;
+import com.illuzionzstudios.custommining.storage.ProgressFile;
+import com.illuzionzstudios.mist.Logger;
+import com.illuzionzstudios.mist.controller.PluginController;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optionally keeps mining progress on disk so long breaks survive
+ * restarts, reloads and chunks unloading.
+ * <p>
+ * Progress is stored per block, not per player, in one {@link ProgressFile}
+ * per world under {@code progress/<world uuid>.bin}. Each world's file is read
+ * on a single background thread when the world loads, so mining never waits on
+ * disk. Progress is written when a block is paused and for every active task on
+ * shutdown, and removed when the block breaks. Writing happens on the same thread
+ */
+public enum PersistenceController implements PluginController<CustomMining>, Listener {
+    INSTANCE;
+
+    /**
+     * Seconds between writing pending progress
+     */
+    private static final int FLUSH_INTERVAL = 5;
+
+    /**
+     * Progress files of each world touched
+     */
+    private final Map<UUID, ProgressFile> files = new ConcurrentHashMap<>();
+
+    /**
+     * Folder progress is kept in
+     */
+    private Path folder;
+
+    /**
+     * Thread doing all file writes
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * If progress is being persisted
+     */
+    private volatile boolean enabled;
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        this.enabled = Settings.MINING_PERSIST_PROGRESS.getBoolean();
+        if (!enabled) return;
+
+        this.folder = plugin.getDataFolder().toPath().resolve("progress");
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CustomMining Progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushAll, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.SECONDS);
+
+        // Start reading files now so they're ready by the first click
+        Bukkit.getWorlds().forEach(this::file);
+        Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        if (!enabled) return;
+        enabled = false;
+
+        // Let any write in progress finish before the final save
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                Logger.severe("Mining progress thread didn't finish in time, saving what's been read");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Finish reading files the thread didn't get to. Compacting a file
+        // that isn't read would replace it with an empty one
+        for (Map.Entry<UUID, ProgressFile> entry : files.entrySet()) {
+            try {
+                entry.getValue().load();
+            } catch (IOException e) {
+                Logger.severe("Couldn't load mining progress of world " + entry.getKey() + ", leaving it as is");
+                e.printStackTrace();
+            }
+        }
+
+        // Save blocks still being mined, then write only live entries
+        long now = now();
+        if (MiningController.INSTANCE.getMiningTasks() != null)
+            MiningController.INSTANCE.getMiningTasks().forEach(task -> save(task.getWorld(), task.getKey(), task.getPercent(), now));
+        MiningController.INSTANCE.forEachDormant((world, key, percent) -> save(world, key, percent, now));
+
+        int expiry = MiningConfig.get().persistExpirySeconds();
+        for (Map.Entry<UUID, ProgressFile> entry : files.entrySet()) {
+            if (!entry.getValue().isLoaded()) continue;
+
+            try {
+                entry.getValue().compact(now, expiry);
+            } catch (IOException e) {
+                Logger.severe("Couldn't save mining progress of world " + entry.getKey());
+                e.printStackTrace();
+            }
+        }
+
+        files.clear();
+    }
+
+    /**
+     * Start reading the progress of worlds loaded later
+     */
+    @EventHandler
+    public void onWorldLoad(WorldLoadEvent event) {
+        if (enabled) file(event.getWorld());
+    }
+
+    /**
+     * @return If progress is being persisted
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get stored progress of a block. Never waits for the world's file,
+     * blocks have no progress until it's been read
+     *
+     * @param world World the block is in
+     * @param key   Packed position of the block
+     * @return Percent mined, or -1 if none
+     */
+    public float getProgress(World world, long key) {
+        if (!enabled) return -1;
+
+        ProgressFile file = file(world);
+        if (!file.isLoaded()) return -1;
+        return file.get(key, now(), MiningConfig.get().persistExpirySeconds());
+    }
+
+    /**
+     * Store the progress of a block
+     *
+     * @param world   World the block is in
+     * @param key     Packed position of the block
+     * @param percent Percent mined
+     */
+    public void setProgress(World world, long key, float percent) {
+        if (!enabled) return;
+
+        ProgressFile file = file(world);
+        long now = now();
+        if (file.isLoaded()) {
+            file.put(key, percent, now);
+        } else {
+            // Queued behind the load so the file doesn't replace it
+            executor.execute(() -> file.put(key, percent, now));
+        }
+    }
+
+    /**
+     * Forget the progress of a block, when it breaks or is cancelled
+     *
+     * @param world World the block is in
+     * @param key   Packed position of the block
+     */
+    public void removeProgress(World world, long key) {
+        if (!enabled) return;
+
+        ProgressFile file = file(world);
+        long now = now();
+        if (file.isLoaded()) {
+            file.remove(key, now);
+        } else {
+            // Queued behind the load so the file doesn't bring it back
+            executor.execute(() -> file.remove(key, now));
+        }
+    }
+
+    /**
+     * Store progress on shutdown, skipping worlds whose file couldn't be read
+     */
+    private void save(World world, long key, float percent, long now) {
+        ProgressFile file = file(world);
+        if (file.isLoaded()) file.put(key, percent, now);
+    }
+
+    /**
+     * Get the progress file of a world, starting to read it on first use.
+     * Once the executor has stopped files are read straight away
+     */
+    private ProgressFile file(World world) {
+        return files.computeIfAbsent(world.getUID(), uuid -> {
+            ProgressFile file = new ProgressFile(folder.resolve(uuid + ".bin"));
+            if (executor.isShutdown()) {
+                load(world, file);
+            } else {
+                executor.execute(() -> load(world, file));
+            }
+            return file;
+        });
+    }
+
+    /**
+     * Read a world's file, moving it aside and starting fresh if it can't be read
+     */
+    private void load(World world, ProgressFile file) {
+        try {
+            file.load();
+            return;
+        } catch (IOException e) {
+            Logger.severe("Couldn't load mining progress of world " + world.getName() + ", moving it aside and starting fresh");
+            e.printStackTrace();
+        }
+
+        Path path = folder.resolve(world.getUID() + ".bin");
+        try {
+            Files.move(path, folder.resolve(world.getUID() + ".bin.corrupt"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Logger.severe("Couldn't move mining progress of world " + world.getName() + " aside, it will be overwritten");
+            e.printStackTrace();
+        }
+
+        file.reset();
+    }
+
+    /**
+     * Write pending progress of every world, compacting files full of dead records
+     */
+    private void flushAll() {
+        long now = now();
+        int expiry = MiningConfig.get().persistExpirySeconds();
+
+        for (Map.Entry<UUID, ProgressFile> entry : files.entrySet()) {
+            try {
+                ProgressFile file = entry.getValue();
+                if (file.needsCompaction()) {
+                    file.compact(now, expiry);
+                } else {
+                    file.flush();
+                }
+            } catch (IOException e) {
+                Logger.severe("Couldn't write mining progress of world " + entry.getKey());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,272 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.player.PlayerMiningProfile;
+import com.illuzionzstudios.custommining.settings.Settings;
+import com.illuzionzstudios.mist.Logger;
+import com.illuzionzstudios.mist.compatibility.ServerVersion;
+import com.illuzionzstudios.mist.controller.PluginController;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockDispenseArmorEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.*;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link PlayerMiningProfile} for each online player and
+ * invalidates it whenever something that affects mining speed changes.
+ * Break time calculations read from the profile instead of querying
+ * Bukkit objects every time
+ * <p>
+ * Permission speed tiers are resolved into the profile on join, world
+ * change and on a slow timer, since permission checks aren't free and
+ * there's no event for permissions changing
+ */
+public enum ProfileController implements PluginController<CustomMining>, Listener {
+    INSTANCE;
+
+    /**
+     * Profiles of online players
+     */
+    private final Map<UUID, PlayerMiningProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Permission nodes of each speed tier, tier n is at index n - 1
+     */
+    private volatile String[] tierNodes = new String[0];
+
+    /**
+     * Multiplier on mining speed of each speed tier
+     */
+    private volatile float[] tierMultipliers = new float[0];
+
+    /**
+     * Task resolving everyone's speed tier
+     */
+    private BukkitTask tierTask;
+
+    /**
+     * Key other plugins can store a float under in an item's persistent data,
+     * {@code custommining:speed}, to multiply the mining speed of custom tools.
+     * Null on versions without persistent data
+     */
+    @Getter
+    private NamespacedKey toolSpeedKey;
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
+        loadTiers();
+
+        // Persistent data was added in 1.14
+        if (!ServerVersion.equals(ServerVersion.V.v1_12) && !ServerVersion.equals(ServerVersion.V.v1_13))
+            this.toolSpeedKey = new NamespacedKey(plugin, "speed");
+
+        // Players already online on reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            profiles.put(player.getUniqueId(), createProfile(player));
+        }
+
+        long refresh = Math.max(1, Settings.MODIFIER_PERMISSION_REFRESH.getInt()) * 20L;
+        this.tierTask = Bukkit.getScheduler().runTaskTimer(plugin, this::resolveTiers, refresh, refresh);
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        if (tierTask != null) {
+            tierTask.cancel();
+            tierTask = null;
+        }
+
+        profiles.clear();
+    }
+
+    /**
+     * Parse the speed tiers from the config and resolve them for
+     * everyone online. Called on reload
+     */
+    public void loadTiers() {
+        List<String> nodes = new ArrayList<>();
+        List<Float> multipliers = new ArrayList<>();
+
+        for (String tier : Settings.MODIFIER_PERMISSION_TIERS.getString().split(",")) {
+            if (tier.isBlank()) continue;
+
+            String[] parts = tier.split("=");
+            try {
+                if (parts.length != 2) throw new NumberFormatException();
+                multipliers.add(Float.parseFloat(parts[1].trim()));
+                nodes.add(parts[0].trim());
+            } catch (NumberFormatException e) {
+                Logger.severe("Invalid permission tier \"" + tier.trim() + "\", should be node=multiplier");
+            }
+        }
+
+        float[] tierMultipliers = new float[multipliers.size()];
+        for (int i = 0; i < tierMultipliers.length; i++) {
+            tierMultipliers[i] = multipliers.get(i);
+        }
+
+        this.tierNodes = nodes.toArray(new String[0]);
+        this.tierMultipliers = tierMultipliers;
+        resolveTiers();
+    }
+
+    /**
+     * Resolve the speed tier of everyone online
+     */
+    public void resolveTiers() {
+        for (PlayerMiningProfile profile : profiles.values()) {
+            resolveTier(profile);
+        }
+    }
+
+    /**
+     * Work out a player's speed tier. Their best tier is used
+     * if they have more than one
+     *
+     * @param profile Profile of the player
+     */
+    private void resolveTier(PlayerMiningProfile profile) {
+        String[] nodes = this.tierNodes;
+        float[] multipliers = this.tierMultipliers;
+
+        int tier = 0;
+        float multiplier = 1;
+        for (int i = 0; i < nodes.length; i++) {
+            if ((tier == 0 || multipliers[i] > multiplier) && profile.getPlayer().hasPermission(nodes[i])) {
+                tier = i + 1;
+                multiplier = multipliers[i];
+            }
+        }
+
+        profile.setSpeedTier(tier, multiplier);
+    }
+
+    private PlayerMiningProfile createProfile(Player player) {
+        PlayerMiningProfile profile = new PlayerMiningProfile(player);
+        resolveTier(profile);
+        return profile;
+    }
+
+    /**
+     * Get the up to date profile of a player. Must be
+     * called on the main thread as it may rebuild the profile
+     *
+     * @param player The player to get the profile for
+     * @return The player's profile
+     */
+    public PlayerMiningProfile getProfile(Player player) {
+        return profiles.computeIfAbsent(player.getUniqueId(), uuid -> createProfile(player)).refresh();
+    }
+
+    /**
+     * Mark a player's profile to be rebuilt
+     *
+     * @param player The player that changed
+     */
+    public void invalidate(Player player) {
+        PlayerMiningProfile profile = profiles.get(player.getUniqueId());
+        if (profile != null) profile.invalidate();
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        profiles.put(event.getPlayer().getUniqueId(), createProfile(event.getPlayer()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        // Permissions can be per world
+        PlayerMiningProfile profile = profiles.get(event.getPlayer().getUniqueId());
+        if (profile != null) resolveTier(profile);
+    }
+
+    @EventHandler
+    public void onLeave(PlayerQuitEvent event) {
+        profiles.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onHeldChange(PlayerItemHeldEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDrop(PlayerDropItemEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        // Milk etc
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInteract(PlayerInteractEvent event) {
+        // Right clicking to equip armour
+        if (event.hasItem() && event.getAction().name().startsWith("RIGHT"))
+            invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player)
+            invalidate(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (event.getWhoClicked() instanceof Player player)
+            invalidate(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getWhoClicked() instanceof Player player)
+            invalidate(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDispenseArmour(BlockDispenseArmorEvent event) {
+        if (event.getTargetEntity() instanceof Player player)
+            invalidate(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPotionChange(EntityPotionEffectEvent event) {
+        if (event.getEntity() instanceof Player player)
+            invalidate(player);
+    }
+}
@@ -0,0 +1,174 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.protection.ChunkProtection;
+import com.illuzionzstudios.custommining.protection.ProtectionProvider;
+import com.illuzionzstudios.custommining.protection.WorldGuardProvider;
+import com.illuzionzstudios.custommining.settings.Settings;
+import com.illuzionzstudios.custommining.util.LongObjectMap;
+import com.illuzionzstudios.mist.Logger;
+import com.illuzionzstudios.mist.controller.PluginController;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Makes blocks protected by region plugins unbreakable.
+ * <p>
+ * Asking a region plugin on every click would be slow, so the
+ * {@link ProtectionProvider} is asked once per chunk and the result cached
+ * until the chunk unloads or regions may have changed. Checking a block
+ * is then a map lookup and a scan of a few ints.
+ * <p>
+ * Only used from the main thread
+ */
+public enum ProtectionController implements PluginController<CustomMining>, Listener {
+    INSTANCE;
+
+    /**
+     * Commands that can change regions, the cache is cleared after they run
+     */
+    private static final String[] REGION_COMMANDS = {"/rg ", "/region ", "/regions ", "/worldguard:"};
+
+    /**
+     * Where protection comes from, null if nothing is protected
+     */
+    @Getter
+    private ProtectionProvider provider;
+
+    /**
+     * Protection of chunks already looked up, per world
+     */
+    private final Map<World, LongObjectMap<ChunkProtection>> chunks = new IdentityHashMap<>();
+
+    /**
+     * Task clearing the cache so region changes are picked up
+     */
+    private BukkitTask refreshTask;
+
+    /**
+     * If a clear is already scheduled for the next tick
+     */
+    private boolean invalidatePending;
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        if (Settings.UNBREAKABLE_REGIONS.getBoolean() && Bukkit.getPluginManager().isPluginEnabled("WorldGuard")) {
+            setProvider(new WorldGuardProvider());
+        }
+
+        Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
+
+        long refresh = Math.max(1, Settings.REGION_REFRESH.getInt()) * 20L;
+        this.refreshTask = Bukkit.getScheduler().runTaskTimer(plugin, this::invalidate, refresh, refresh);
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+
+        provider = null;
+        invalidate();
+    }
+
+    /**
+     * Set where protection comes from, replacing the current one.
+     * Lets other protection plugins decide what can be broken
+     *
+     * @param provider The provider, or null to protect nothing
+     */
+    public void setProvider(ProtectionProvider provider) {
+        this.provider = provider;
+        invalidate();
+
+        if (provider != null) Logger.info("Using " + provider.getName() + " for protected blocks");
+    }
+
+    /**
+     * Forget all cached protection, it's looked up
+     * again the next time each chunk is checked
+     */
+    public void invalidate() {
+        chunks.clear();
+        invalidatePending = false;
+    }
+
+    /**
+     * @param block The block to check
+     * @return If the block can't be broken because it's protected
+     */
+    public boolean isProtected(Block block) {
+        if (provider == null) return false;
+
+        int x = block.getX();
+        int z = block.getZ();
+        World world = block.getWorld();
+
+        LongObjectMap<ChunkProtection> inWorld = chunks.computeIfAbsent(world, w -> new LongObjectMap<>());
+        long key = getChunkKey(x >> 4, z >> 4);
+
+        ChunkProtection protection = inWorld.get(key);
+        if (protection == null) {
+            protection = provider.getProtection(world, x >> 4, z >> 4);
+            inWorld.put(key, protection);
+        }
+
+        return protection.isProtected(x, block.getY(), z);
+    }
+
+    /**
+     * @return Amount of chunks with protection cached
+     */
+    public int getCachedChunks() {
+        int size = 0;
+        for (LongObjectMap<ChunkProtection> inWorld : chunks.values()) {
+            size += inWorld.size();
+        }
+        return size;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCommand(PlayerCommandPreprocessEvent event) {
+        if (provider == null || invalidatePending) return;
+
+        String command = event.getMessage().toLowerCase(Locale.ROOT);
+        for (String regionCommand : REGION_COMMANDS) {
+            if (command.startsWith(regionCommand)) {
+                // Clear after the command has run
+                invalidatePending = true;
+                Bukkit.getScheduler().runTask(CustomMining.getInstance(), this::invalidate);
+                return;
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        LongObjectMap<ChunkProtection> inWorld = chunks.get(event.getWorld());
+        if (inWorld != null) inWorld.remove(getChunkKey(event.getChunk().getX(), event.getChunk().getZ()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        chunks.remove(event.getWorld());
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,258 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.settings.Settings;
+import com.illuzionzstudios.custommining.task.MiningEngine;
+import com.illuzionzstudios.custommining.util.Histogram;
+import com.illuzionzstudios.mist.Logger;
+import com.illuzionzstudios.mist.controller.PluginController;
+import com.illuzionzstudios.mist.util.Metrics;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps counters and timings of the mining system so we can see
+ * what it's doing on a live server.
+ * <p>
+ * Everything is recorded lock free from whatever thread it happens on.
+ * Shown through {@code /custommining stats}, bStats charts, and optionally
+ * a Prometheus text endpoint bound to localhost
+ */
+public enum StatsController implements PluginController<CustomMining> {
+    INSTANCE;
+
+    /**
+     * Time each engine tick takes
+     */
+    @Getter
+    private final Histogram tickTime = new Histogram();
+
+    /**
+     * Time taken to work out a break time
+     */
+    @Getter
+    private final Histogram breakTimeCalculation = new Histogram();
+
+    /**
+     * Time taken to break a block on the main thread
+     */
+    @Getter
+    private final Histogram breakBlockTime = new Histogram();
+
+    /**
+     * Time from a block being clicked to it breaking
+     */
+    @Getter
+    private final Histogram clickToBreak = new Histogram();
+
+    /**
+     * Blocks broken by mining
+     */
+    private final LongAdder breaks = new LongAdder();
+
+    /**
+     * Breaks per second over the last second
+     */
+    @Getter
+    private volatile double breaksPerSecond;
+
+    /**
+     * Breaks counted at the last rate sample
+     */
+    private long lastBreaks;
+
+    /**
+     * Breaks counted at the last bStats submission
+     */
+    private long lastReportedBreaks;
+
+    /**
+     * The scrape endpoint if enabled
+     */
+    private HttpServer endpoint;
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        if (Settings.METRICS_ENDPOINT.getBoolean()) startEndpoint(Settings.METRICS_PORT.getInt());
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        if (endpoint != null) {
+            endpoint.stop(0);
+            endpoint = null;
+        }
+    }
+
+    /**
+     * Add our charts to bStats
+     *
+     * @param metrics The plugin's metrics
+     */
+    public void addCharts(Metrics metrics) {
+        metrics.addCustomChart(new Metrics.SingleLineChart("active_mining_tasks", () -> MiningEngine.INSTANCE.getActiveCount()));
+        metrics.addCustomChart(new Metrics.SingleLineChart("blocks_mined", () -> {
+            // Only what was broken since the last submit
+            long total = breaks.sum();
+            long mined = total - lastReportedBreaks;
+            lastReportedBreaks = total;
+            return (int) Math.min(Integer.MAX_VALUE, mined);
+        }));
+    }
+
+    /**
+     * Count a block being broken
+     */
+    public void countBreak() {
+        breaks.increment();
+    }
+
+    /**
+     * @return Blocks broken by mining
+     */
+    public long getBreaks() {
+        return breaks.sum();
+    }
+
+    /**
+     * Record an engine tick. Called at the end of every tick by the {@link MiningEngine}
+     *
+     * @param tick  The engine tick
+     * @param nanos Time the tick took
+     */
+    public void tick(long tick, long nanos) {
+        tickTime.record(nanos);
+
+        if (tick % 20 == 0) {
+            long total = breaks.sum();
+            breaksPerSecond = total - lastBreaks;
+            lastBreaks = total;
+        }
+    }
+
+    /**
+     * @return Human readable lines of every stat
+     */
+    public List<String> getReport() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Server: " + format(GovernorController.INSTANCE.getMspt()) + "ms per tick, governor level " + GovernorController.INSTANCE.getLevel());
+        lines.add("Active tasks: " + MiningEngine.INSTANCE.getActiveCount() + " (" + MiningEngine.INSTANCE.getPausedCount() + " paused), "
+                + MiningController.INSTANCE.getDormantCount() + " dormant");
+        lines.add("Dig interceptors: " + MiningController.INSTANCE.getInterceptedCount() + " players");
+        lines.add("Breaks: " + getBreaks() + " (" + format(breaksPerSecond) + "/s)");
+        lines.add("Break queue: " + MiningEngine.INSTANCE.getBreakQueue().getDepth() + " waiting, "
+                + MiningEngine.INSTANCE.getBreakQueue().getSpills() + " spills, "
+                + MiningEngine.INSTANCE.getBreakQueue().getCarried() + " carried");
+        lines.add("Animations: " + AnimationController.INSTANCE.getSent() + " sent, "
+                + AnimationController.INSTANCE.getCoalesced() + " coalesced, "
+                + AnimationController.INSTANCE.getSpills() + " spilled, "
+                + AnimationController.INSTANCE.getFlushes() + " flushes, "
+                + AnimationController.INSTANCE.getAnimating() + " blocks animating");
+        lines.add("Protection: " + (ProtectionController.INSTANCE.getProvider() == null ? "none" : ProtectionController.INSTANCE.getProvider().getName())
+                + ", " + ProtectionController.INSTANCE.getCachedChunks() + " chunks cached");
+        lines.add("Break time cache: " + HardnessController.INSTANCE.getCacheHits() + " hits, "
+                + HardnessController.INSTANCE.getCacheMisses() + " misses");
+        lines.add(describe("Engine tick", tickTime));
+        lines.add(describe("Break time calc", breakTimeCalculation));
+        lines.add(describe("Break block", breakBlockTime));
+        lines.add(describe("Click to break", clickToBreak));
+        lines.addAll(ModifierController.INSTANCE.getTimings());
+        return lines;
+    }
+
+    /**
+     * @return Every stat in Prometheus text format
+     */
+    public String getPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        gauge(text, "custommining_governor_level", "Degradation level from server load", GovernorController.INSTANCE.getLevel());
+        gauge(text, "custommining_active_tasks", "Mining tasks being ticked", MiningEngine.INSTANCE.getActiveCount());
+        gauge(text, "custommining_paused_tasks", "Mining tasks paused", MiningEngine.INSTANCE.getPausedCount());
+        gauge(text, "custommining_dormant_blocks", "Blocks with paused progress not ticking", MiningController.INSTANCE.getDormantCount());
+        counter(text, "custommining_breaks_total", "Blocks broken by mining", getBreaks());
+        gauge(text, "custommining_break_queue_depth", "Breaks waiting for the main thread", MiningEngine.INSTANCE.getBreakQueue().getDepth());
+        counter(text, "custommining_break_queue_spills_total", "Ticks the break budget ran out", MiningEngine.INSTANCE.getBreakQueue().getSpills());
+        counter(text, "custommining_break_queue_carried_total", "Breaks carried to a later tick", MiningEngine.INSTANCE.getBreakQueue().getCarried());
+        gauge(text, "custommining_animating_blocks", "Blocks with a breaker id showing damage", AnimationController.INSTANCE.getAnimating());
+        counter(text, "custommining_animations_sent_total", "Break animation packets written", AnimationController.INSTANCE.getSent());
+        counter(text, "custommining_animations_coalesced_total", "Break animations replaced before sending", AnimationController.INSTANCE.getCoalesced());
+        counter(text, "custommining_animation_flushes_total", "Connection flushes for break animations", AnimationController.INSTANCE.getFlushes());
+        counter(text, "custommining_animations_spilled_total", "Break animations queued while the ring was full", AnimationController.INSTANCE.getSpills());
+        counter(text, "custommining_break_time_cache_hits_total", "Break times found in the cache", HardnessController.INSTANCE.getCacheHits());
+        counter(text, "custommining_break_time_cache_misses_total", "Break times calculated", HardnessController.INSTANCE.getCacheMisses());
+        summary(text, "custommining_engine_tick_seconds", "Time of each engine tick", tickTime);
+        summary(text, "custommining_break_time_calculation_seconds", "Time to work out a break time", breakTimeCalculation);
+        summary(text, "custommining_break_block_seconds", "Time to break a block", breakBlockTime);
+        summary(text, "custommining_click_to_break_seconds", "Time from clicking a block to it breaking", clickToBreak);
+        return text.toString();
+    }
+
+    /**
+     * Serve {@link #getPrometheusText()} on localhost
+     */
+    private void startEndpoint(int port) {
+        try {
+            endpoint = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            endpoint.createContext("/metrics", exchange -> {
+                byte[] body = getPrometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            endpoint.start();
+            Logger.info("Serving metrics on http://127.0.0.1:" + port + "/metrics");
+        } catch (IOException e) {
+            Logger.severe("Couldn't start metrics endpoint on port " + port);
+            e.printStackTrace();
+            endpoint = null;
+        }
+    }
+
+    private static String describe(String name, Histogram histogram) {
+        return name + ": p50 " + millis(histogram.getPercentile(50)) + " p99 " + millis(histogram.getPercentile(99))
+                + " max " + millis(histogram.getMax()) + " (" + histogram.getCount() + ")";
+    }
+
+    private static String millis(long nanos) {
+        return format(nanos / 1_000_000.0) + "ms";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static void gauge(StringBuilder text, String name, String help, long value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" gauge\n");
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder text, String name, String help, long value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" counter\n");
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder text, String name, String help, Histogram histogram) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" summary\n");
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            text.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.getPercentile(quantile * 100) / 1e9).append('\n');
+        }
+        text.append(name).append("_sum ").append(histogram.getTotal() / 1e9).append('\n');
+        text.append(name).append("_count ").append(histogram.getCount()).append('\n');
+    }
+}
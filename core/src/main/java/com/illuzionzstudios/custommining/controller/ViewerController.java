@@ -0,0 +1,217 @@
+package com.illuzionzstudios.custommining.controller;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.util.LongObjectMap;
+import com.illuzionzstudios.mist.controller.PluginController;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of which chunk every player is in so block break
+ * animations are only sent to players close enough to see them.
+ * <p>
+ * The index is updated from movement events on the main thread
+ * and can be read from any thread
+ */
+public enum ViewerController implements PluginController<CustomMining>, Listener {
+    INSTANCE;
+
+    /**
+     * Players in each chunk, per world
+     */
+    private final Map<UUID, LongObjectMap<List<Viewer>>> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Where each player currently is in the index
+     */
+    private final Map<UUID, Viewer> viewers = new ConcurrentHashMap<>();
+
+    /**
+     * List handed out from {@link #getViewers}, reused per thread
+     * so we don't allocate a list every animation
+     */
+    private final ThreadLocal<ArrayList<Player>> buffer = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        Bukkit.getServer().getPluginManager().registerEvents(this, plugin);
+
+        // Players already online on reload
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            update(player, player.getLocation());
+        }
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        worlds.clear();
+        viewers.clear();
+    }
+
+    /**
+     * Get the players close enough to see a block. The list returned
+     * is reused on the next call from the same thread so must not be kept
+     *
+     * @param world World the block is in
+     * @param x     X coordinate of the block
+     * @param z     Z coordinate of the block
+     * @return Players within the broadcast radius
+     */
+    public List<Player> getViewers(World world, int x, int z) {
+        ArrayList<Player> result = buffer.get();
+        result.clear();
+
+        LongObjectMap<List<Viewer>> chunks = worlds.get(world.getUID());
+        if (chunks == null) return result;
+
+        // Radius shrinks when the server is lagging
+        int radius = GovernorController.INSTANCE.getBroadcastRadius();
+        long radiusSquared = (long) radius * radius;
+
+        synchronized (chunks) {
+            for (int chunkX = (x - radius) >> 4; chunkX <= (x + radius) >> 4; chunkX++) {
+                for (int chunkZ = (z - radius) >> 4; chunkZ <= (z + radius) >> 4; chunkZ++) {
+                    List<Viewer> inChunk = chunks.get(getChunkKey(chunkX, chunkZ));
+                    if (inChunk == null) continue;
+
+                    for (int i = 0; i < inChunk.size(); i++) {
+                        Viewer viewer = inChunk.get(i);
+                        double dx = viewer.x - x;
+                        double dz = viewer.z - z;
+
+                        if (dx * dx + dz * dz <= radiusSquared) result.add(viewer.player);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Update where a player is in the index
+     *
+     * @param player   The player that moved
+     * @param location Where they are now
+     */
+    private void update(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        Viewer viewer = viewers.computeIfAbsent(player.getUniqueId(), uuid -> new Viewer(player));
+        viewer.x = location.getX();
+        viewer.z = location.getZ();
+
+        UUID worldId = world.getUID();
+        long chunk = getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+
+        // Still in the same chunk so nothing to move
+        if (worldId.equals(viewer.world) && chunk == viewer.chunk) return;
+
+        remove(viewer);
+
+        LongObjectMap<List<Viewer>> chunks = worlds.computeIfAbsent(worldId, uuid -> new LongObjectMap<>());
+        synchronized (chunks) {
+            List<Viewer> inChunk = chunks.get(chunk);
+            if (inChunk == null) {
+                inChunk = new ArrayList<>(4);
+                chunks.put(chunk, inChunk);
+            }
+            inChunk.add(viewer);
+        }
+
+        viewer.world = worldId;
+        viewer.chunk = chunk;
+    }
+
+    /**
+     * Take a viewer out of the chunk they're indexed in
+     */
+    private void remove(Viewer viewer) {
+        if (viewer.world == null) return;
+
+        LongObjectMap<List<Viewer>> chunks = worlds.get(viewer.world);
+        if (chunks == null) return;
+
+        synchronized (chunks) {
+            List<Viewer> inChunk = chunks.get(viewer.chunk);
+            if (inChunk == null) return;
+
+            inChunk.remove(viewer);
+            if (inChunk.isEmpty()) chunks.remove(viewer.chunk);
+        }
+
+        viewer.world = null;
+    }
+
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler
+    public void onLeave(PlayerQuitEvent event) {
+        Viewer viewer = viewers.remove(event.getPlayer().getUniqueId());
+        if (viewer != null) remove(viewer);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        if (event.getTo() != null) update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        if (event.getTo() != null) update(event.getPlayer(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        update(event.getPlayer(), event.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    /**
+     * A player's position in the index
+     */
+    private static final class Viewer {
+
+        private final Player player;
+
+        /**
+         * World and chunk the player is indexed under
+         */
+        private UUID world;
+        private long chunk;
+
+        /**
+         * Last known position for distance checks
+         */
+        private volatile double x;
+        private volatile double z;
+
+        private Viewer(Player player) {
+            this.player = player;
+        }
+    }
+}
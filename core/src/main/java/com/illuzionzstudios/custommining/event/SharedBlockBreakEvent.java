@@ -0,0 +1,60 @@
+package com.illuzionzstudios.custommining.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Called when a block mined by multiple players with shared
+ * progress is about to break. If cancelled the block isn't broken
+ * and it's progress is lost
+ */
+@Getter
+public class SharedBlockBreakEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    /**
+     * The block breaking
+     */
+    private final Block block;
+
+    /**
+     * Every player that helped mine the block, in the order they
+     * joined, to the share of the damage they did from 0 to 1
+     */
+    private final Map<Player, Float> contributions;
+
+    /**
+     * The player credited with breaking the block, gets the drops
+     * and uses durability. Defaults to whoever did the most damage
+     */
+    @Setter
+    private Player breaker;
+
+    @Setter
+    private boolean cancelled;
+
+    public SharedBlockBreakEvent(Block block, Map<Player, Float> contributions, Player breaker) {
+        this.block = block;
+        this.contributions = contributions;
+        this.breaker = breaker;
+    }
+
+    @NotNull
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,46 @@
+package com.illuzionzstudios.custommining.modifier;
+
+import com.illuzionzstudios.custommining.controller.ModifierController;
+
+/**
+ * Changes the speed a player mines a block at. Registered with
+ * {@link ModifierController#register} and run in order of priority
+ * every time a break time is worked out, after the tool's speed.
+ * <p>
+ * Custom tool speed, vanilla efficiency, potions, water and air, and permission
+ * speed tiers are modifiers too, see the priorities in {@link ModifierController}
+ */
+public interface MiningModifier {
+
+    /**
+     * @return Modifiers with a lower priority run first
+     */
+    int getPriority();
+
+    /**
+     * @return Name shown in stats
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * If the result only depends on the block and tool materials and the
+     * enchants, effects and position in the context. Break times aren't
+     * cached while a modifier that isn't cacheable is registered
+     *
+     * @return If break times using this modifier can be cached
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Change the mining speed
+     *
+     * @param speed   Speed so far
+     * @param context What's being mined. Reused so don't keep it
+     * @return The new speed
+     */
+    float modify(float speed, ModifierContext context);
+}
@@ -0,0 +1,103 @@
+package com.illuzionzstudios.custommining.modifier;
+
+import lombok.Getter;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Everything a {@link MiningModifier} may need about a block being mined.
+ * One is kept per thread and filled in for each calculation so running
+ * modifiers doesn't allocate
+ */
+@Getter
+public final class ModifierContext {
+
+    /**
+     * The player mining
+     */
+    private Player player;
+
+    /**
+     * The block being mined
+     */
+    private Block block;
+
+    /**
+     * The item being used
+     */
+    private ItemStack tool;
+
+    /**
+     * Level of efficiency on the tool
+     */
+    private int efficiency;
+
+    /**
+     * Amplifier of haste, -1 if none
+     */
+    private int haste;
+
+    /**
+     * Amplifier of mining fatigue, -1 if none
+     */
+    private int fatigue;
+
+    /**
+     * If in water without aqua affinity
+     */
+    private boolean inWater;
+
+    /**
+     * If the player is on the ground
+     */
+    private boolean onGround;
+
+    /**
+     * If the tool helps break the block
+     */
+    private boolean preferredTool;
+
+    /**
+     * If the tool can harvest the block
+     */
+    private boolean harvestable;
+
+    /**
+     * Multiplier from the player's permission speed tier
+     */
+    private float speedMultiplier;
+
+    /**
+     * Custom speed stored on the tool, 1 if none
+     */
+    private float toolSpeed;
+
+    /**
+     * Fill in for a new calculation
+     */
+    public void set(Player player, Block block, ItemStack tool, int efficiency, int haste, int fatigue,
+                    boolean inWater, boolean onGround, boolean preferredTool, boolean harvestable, float speedMultiplier, float toolSpeed) {
+        this.player = player;
+        this.block = block;
+        this.tool = tool;
+        this.efficiency = efficiency;
+        this.haste = haste;
+        this.fatigue = fatigue;
+        this.inWater = inWater;
+        this.onGround = onGround;
+        this.preferredTool = preferredTool;
+        this.harvestable = harvestable;
+        this.speedMultiplier = speedMultiplier;
+        this.toolSpeed = toolSpeed;
+    }
+
+    /**
+     * Drop references once a calculation is done
+     */
+    public void clear() {
+        this.player = null;
+        this.block = null;
+        this.tool = null;
+    }
+}
@@ -0,0 +1,134 @@
+package com.illuzionzstudios.custommining.player;
+
+import com.illuzionzstudios.custommining.util.BlockKey;
+import com.illuzionzstudios.custommining.util.LongLongMap;
+import org.bukkit.World;
+
+/**
+ * Progress of blocks a player stopped mining, kept so they can pick
+ * up where they left off without a task ticking in the meantime.
+ * <p>
+ * Each block is one primitive entry from it's packed position to the
+ * percent mined and the engine tick it was paused at. Only blocks in one
+ * world are kept, moving to another world forgets the rest
+ */
+public class DormantProgress {
+
+    /**
+     * Returned when a block has no progress
+     */
+    private static final long NONE = -1L;
+
+    /**
+     * World the progress is in
+     */
+    private World world;
+
+    /**
+     * Packed position, see {@link BlockKey}, to progress packed by {@link #pack}
+     */
+    private final LongLongMap entries = new LongLongMap();
+
+    /**
+     * Keep the progress of a block
+     *
+     * @param world    World the block is in
+     * @param key      Packed position of the block
+     * @param percent  Percent mined
+     * @param pausedAt Engine tick it was paused at
+     */
+    public synchronized void put(World world, long key, float percent, long pausedAt) {
+        if (this.world != world) {
+            entries.clear();
+            this.world = world;
+        }
+
+        entries.put(key, pack(percent, pausedAt));
+    }
+
+    /**
+     * Take the progress of a block, removing it
+     *
+     * @param world World the block is in
+     * @param key   Packed position of the block
+     * @return Percent mined, or -1 if none
+     */
+    public synchronized float take(World world, long key) {
+        if (this.world != world) return -1;
+
+        long entry = entries.remove(key, NONE);
+        return entry == NONE ? -1 : getPercent(entry);
+    }
+
+    /**
+     * @param world World the block is in
+     * @param key   Packed position of the block
+     * @return If the block has progress kept
+     */
+    public synchronized boolean contains(World world, long key) {
+        return this.world == world && entries.get(key, NONE) != NONE;
+    }
+
+    /**
+     * Forget the progress of a block if it hasn't been
+     * touched since it was paused
+     *
+     * @param world    World the block is in
+     * @param key      Packed position of the block
+     * @param pausedAt Engine tick it was paused at
+     * @return If the progress was forgotten
+     */
+    public synchronized boolean expire(World world, long key, long pausedAt) {
+        if (this.world != world) return false;
+
+        long entry = entries.get(key, NONE);
+        if (entry == NONE || (int) entry != (int) pausedAt) return false;
+
+        entries.remove(key, NONE);
+        return true;
+    }
+
+    /**
+     * Call the consumer with every block's progress
+     */
+    public synchronized void forEach(ProgressConsumer consumer) {
+        if (world == null) return;
+        entries.forEach((key, entry) -> consumer.accept(world, key, getPercent(entry)));
+    }
+
+    /**
+     * @return Amount of blocks with progress kept
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Forget all progress
+     */
+    public synchronized void clear() {
+        entries.clear();
+        world = null;
+    }
+
+    /**
+     * Pack progress into one long, percent float bits high and
+     * the low 32 bits of the paused tick low. Never equals {@link #NONE}
+     * as percent is never a negative NaN
+     */
+    private static long pack(float percent, long pausedAt) {
+        return (long) Float.floatToIntBits(percent) << 32 | (pausedAt & 0xFFFFFFFFL);
+    }
+
+    private static float getPercent(long entry) {
+        return Float.intBitsToFloat((int) (entry >>> 32));
+    }
+
+    /**
+     * Receives the progress of blocks
+     */
+    @FunctionalInterface
+    public interface ProgressConsumer {
+        void accept(World world, long key, float percent);
+    }
+}
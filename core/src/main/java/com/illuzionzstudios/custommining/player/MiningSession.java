@@ -0,0 +1,54 @@
+package com.illuzionzstudios.custommining.player;
+
+import com.illuzionzstudios.custommining.task.MiningTask;
+import com.illuzionzstudios.custommining.util.BlockKey;
+import lombok.Getter;
+import lombok.Setter;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+/**
+ * Mining state of an online player. Checked by their
+ * {@link MiningTask}'s every tick so everything here is a
+ * single field read
+ */
+@Getter
+@Setter
+public class MiningSession {
+
+    /**
+     * The player this session is for
+     */
+    private final Player player;
+
+    /**
+     * If the player is currently digging. When false
+     * their tasks don't tick, used if the player stopped
+     * digging or triggered one accidentally
+     */
+    private volatile boolean digActive = true;
+
+    /**
+     * World of the block currently being targeted
+     */
+    private volatile World targetWorld;
+
+    /**
+     * Packed position of the block currently being targeted, see {@link BlockKey}
+     */
+    private volatile long target;
+
+    /**
+     * The task of the block currently being targeted
+     */
+    private volatile MiningTask currentTask;
+
+    /**
+     * Progress of blocks the player stopped mining
+     */
+    private final DormantProgress dormant = new DormantProgress();
+
+    public MiningSession(Player player) {
+        this.player = player;
+    }
+}
@@ -0,0 +1,151 @@
+package com.illuzionzstudios.custommining.player;
+
+import com.illuzionzstudios.custommining.controller.ModifierController;
+import com.illuzionzstudios.custommining.controller.ProfileController;
+import lombok.Getter;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+/**
+ * Snapshot of everything about a player that affects how fast
+ * they mine. Rather than asking Bukkit for the held item, enchants and
+ * potions on every calculation we read them once and keep them here
+ * until something changes.
+ * <p>
+ * The {@link ProfileController} marks profiles as dirty when the player's
+ * inventory or effects change, and they are rebuilt on next use. The held
+ * item is also compared on every use, as it can be changed in place without
+ * an event, like by {@code /enchant} or another plugin
+ */
+@Getter
+public class PlayerMiningProfile {
+
+    /**
+     * The player this profile is for
+     */
+    private final Player player;
+
+    /**
+     * Copy of the item held in the main hand
+     */
+    private ItemStack tool;
+
+    /**
+     * Material of the held item
+     */
+    private Material toolType = Material.AIR;
+
+    /**
+     * Level of efficiency on the held item
+     */
+    private int efficiencyLevel;
+
+    /**
+     * Level of unbreaking on the held item
+     */
+    private int unbreakingLevel;
+
+    /**
+     * Multiplier on mining speed other plugins stored on the held item
+     * under {@link ProfileController#getToolSpeedKey()}, 1 if none
+     */
+    private float toolSpeed = 1;
+
+    /**
+     * If any armour piece has aqua affinity
+     */
+    private boolean aquaAffinity;
+
+    /**
+     * Amplifier of haste, -1 if none
+     */
+    private int hasteAmplifier = -1;
+
+    /**
+     * Amplifier of mining fatigue, -1 if none
+     */
+    private int fatigueAmplifier = -1;
+
+    /**
+     * Permission speed tier of the player, 0 if none. Resolved by the
+     * {@link ProfileController} on join and every so often, not on refresh
+     */
+    private volatile int speedTier;
+
+    /**
+     * Multiplier on mining speed from the speed tier
+     */
+    private volatile float speedMultiplier = 1;
+
+    /**
+     * If something changed and the profile needs rebuilding
+     */
+    private volatile boolean dirty = true;
+
+    public PlayerMiningProfile(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Mark the profile to be rebuilt on next use
+     */
+    public void invalidate() {
+        this.dirty = true;
+    }
+
+    /**
+     * Set the permission speed tier of the player
+     *
+     * @param tier       The tier, 0 for none
+     * @param multiplier Multiplier on mining speed from the tier
+     */
+    public void setSpeedTier(int tier, float multiplier) {
+        this.speedTier = tier;
+        this.speedMultiplier = multiplier;
+    }
+
+    /**
+     * Rebuild the profile if it has been invalidated.
+     * Must be called on the main thread
+     *
+     * @return This profile
+     */
+    public PlayerMiningProfile refresh() {
+        ItemStack hand = player.getInventory().getItemInMainHand();
+        if (!dirty && hand.getType() == toolType && hand.isSimilar(tool)) return this;
+        dirty = false;
+
+        // Copied so changes to the item are noticed next time
+        this.tool = hand.clone();
+        this.toolType = hand.getType();
+        this.efficiencyLevel = hand.getEnchantmentLevel(Enchantment.DIG_SPEED);
+        this.unbreakingLevel = hand.getEnchantmentLevel(Enchantment.DURABILITY);
+        this.toolSpeed = readToolSpeed(hand);
+
+        this.aquaAffinity = ModifierController.INSTANCE.armourContainsEnchant(player, Enchantment.WATER_WORKER);
+
+        PotionEffect haste = player.getPotionEffect(PotionEffectType.FAST_DIGGING);
+        PotionEffect fatigue = player.getPotionEffect(PotionEffectType.SLOW_DIGGING);
+        this.hasteAmplifier = haste == null ? -1 : haste.getAmplifier();
+        this.fatigueAmplifier = fatigue == null ? -1 : fatigue.getAmplifier();
+
+        return this;
+    }
+
+    /**
+     * @return Custom speed stored on an item, 1 if none
+     */
+    private static float readToolSpeed(ItemStack item) {
+        NamespacedKey key = ProfileController.INSTANCE.getToolSpeedKey();
+        if (key == null || !item.hasItemMeta()) return 1;
+
+        Float speed = item.getItemMeta().getPersistentDataContainer().get(key, PersistentDataType.FLOAT);
+        return speed == null || speed <= 0 ? 1 : speed;
+    }
+}
@@ -0,0 +1,105 @@
+package com.illuzionzstudios.custommining.protection;
+
+import java.util.Arrays;
+
+/**
+ * What a {@link ProtectionProvider} worked out for one chunk, so checking
+ * a block is a short scan of ints without asking the protection plugin.
+ * <p>
+ * Each of the 256 columns holds the regions covering it as runs of
+ * four ints: min y, max y, priority and state. The region with the
+ * highest priority that has a state decides, with deny winning ties.
+ * Blocks no region covers use the fallback, like a global region
+ * <p>
+ * Filled in by the provider then only read
+ */
+public class ChunkProtection {
+
+    /**
+     * No protection anywhere in the chunk
+     */
+    public static final ChunkProtection NONE = new ChunkProtection(false);
+
+    /**
+     * The region doesn't say if blocks can be broken
+     */
+    public static final int UNSET = -1;
+
+    /**
+     * The region lets blocks be broken
+     */
+    public static final int ALLOW = 0;
+
+    /**
+     * The region stops blocks being broken
+     */
+    public static final int DENY = 1;
+
+    /**
+     * Regions covering each column, indexed by (x & 15) << 4 | (z & 15)
+     */
+    private final int[][] columns = new int[256][];
+
+    /**
+     * If blocks outside every region are protected
+     */
+    private final boolean fallback;
+
+    public ChunkProtection(boolean fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Add a region covering part of a column
+     *
+     * @param x        X of the column, only the chunk relative bits are used
+     * @param z        Z of the column, only the chunk relative bits are used
+     * @param minY     Lowest y the region covers
+     * @param maxY     Highest y the region covers
+     * @param priority Priority of the region
+     * @param state    One of {@link #UNSET}, {@link #ALLOW} or {@link #DENY}
+     */
+    public void add(int x, int z, int minY, int maxY, int priority, int state) {
+        int column = (x & 15) << 4 | (z & 15);
+        int[] entries = columns[column];
+        int length = entries == null ? 0 : entries.length;
+        entries = entries == null ? new int[4] : Arrays.copyOf(entries, length + 4);
+
+        entries[length] = minY;
+        entries[length + 1] = maxY;
+        entries[length + 2] = priority;
+        entries[length + 3] = state;
+        columns[column] = entries;
+    }
+
+    /**
+     * @return If the block at the coordinates can't be broken
+     */
+    public boolean isProtected(int x, int y, int z) {
+        int[] entries = columns[(x & 15) << 4 | (z & 15)];
+        if (entries == null) return fallback;
+
+        boolean covered = false;
+        int priority = Integer.MIN_VALUE;
+        int state = UNSET;
+
+        for (int i = 0; i < entries.length; i += 4) {
+            if (y < entries[i] || y > entries[i + 1]) continue;
+            covered = true;
+
+            int entryState = entries[i + 3];
+            if (entryState == UNSET) continue;
+
+            int entryPriority = entries[i + 2];
+            if (state == UNSET || entryPriority > priority) {
+                priority = entryPriority;
+                state = entryState;
+            } else if (entryPriority == priority && entryState == DENY) {
+                state = DENY;
+            }
+        }
+
+        if (state != UNSET) return state == DENY;
+        return !covered && fallback;
+    }
+}
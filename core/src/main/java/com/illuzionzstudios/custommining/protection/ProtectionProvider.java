@@ -0,0 +1,28 @@
+package com.illuzionzstudios.custommining.protection;
+
+import com.illuzionzstudios.custommining.controller.ProtectionController;
+import org.bukkit.World;
+
+/**
+ * Source of which blocks are protected from being broken, like a
+ * region plugin. Asked once per chunk and the result is cached by
+ * the {@link ProtectionController} until it's invalidated
+ */
+public interface ProtectionProvider {
+
+    /**
+     * @return Name of the provider to show in logs
+     */
+    String getName();
+
+    /**
+     * Work out which blocks of a chunk can't be broken.
+     * Called from the main thread
+     *
+     * @param world  World the chunk is in
+     * @param chunkX X of the chunk
+     * @param chunkZ Z of the chunk
+     * @return Protection of the chunk, {@link ChunkProtection#NONE} if nothing is protected
+     */
+    ChunkProtection getProtection(World world, int chunkX, int chunkZ);
+}
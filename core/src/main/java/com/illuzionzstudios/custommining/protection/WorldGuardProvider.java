@@ -0,0 +1,81 @@
+package com.illuzionzstudios.custommining.protection;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.WorldGuard;
+import com.sk89q.worldguard.protection.flags.Flags;
+import com.sk89q.worldguard.protection.flags.StateFlag;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.bukkit.World;
+
+/**
+ * Protection from WorldGuard regions. A block is protected when the
+ * region deciding it denies block break, or build if block break isn't set.
+ * Flags are read from regions and their parents, member and bypass
+ * permissions aren't taken into account
+ */
+public class WorldGuardProvider implements ProtectionProvider {
+
+    /**
+     * Y range used to find every region touching a chunk
+     */
+    private static final int MIN_Y = -2048;
+    private static final int MAX_Y = 2047;
+
+    @Override
+    public String getName() {
+        return "WorldGuard";
+    }
+
+    @Override
+    public ChunkProtection getProtection(World world, int chunkX, int chunkZ) {
+        RegionManager regions = WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if (regions == null) return ChunkProtection.NONE;
+
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+
+        ProtectedRegion global = regions.getRegion(ProtectedRegion.GLOBAL_REGION);
+        boolean fallback = global != null && getState(global) == ChunkProtection.DENY;
+
+        ProtectedRegion chunk = new ProtectedCuboidRegion("custommining_chunk", true,
+                BlockVector3.at(minX, MIN_Y, minZ), BlockVector3.at(minX + 15, MAX_Y, minZ + 15));
+
+        ChunkProtection protection = null;
+        for (ProtectedRegion region : regions.getApplicableRegions(chunk)) {
+            if (region.getId().equals(ProtectedRegion.GLOBAL_REGION)) continue;
+
+            int minY = region.getMinimumPoint().getBlockY();
+            int maxY = region.getMaximumPoint().getBlockY();
+            int state = getState(region);
+
+            // Regions can be any shape so check each column
+            for (int x = minX; x < minX + 16; x++) {
+                for (int z = minZ; z < minZ + 16; z++) {
+                    if (!region.contains(x, minY, z)) continue;
+
+                    if (protection == null) protection = new ChunkProtection(fallback);
+                    protection.add(x, z, minY, maxY, region.getPriority(), state);
+                }
+            }
+        }
+
+        if (protection != null) return protection;
+        return fallback ? new ChunkProtection(true) : ChunkProtection.NONE;
+    }
+
+    /**
+     * @return If the region allows breaking, as a {@link ChunkProtection} state
+     */
+    private int getState(ProtectedRegion region) {
+        for (ProtectedRegion current = region; current != null; current = current.getParent()) {
+            StateFlag.State state = current.getFlag(Flags.BLOCK_BREAK);
+            if (state == null) state = current.getFlag(Flags.BUILD);
+            if (state != null) return state == StateFlag.State.DENY ? ChunkProtection.DENY : ChunkProtection.ALLOW;
+        }
+
+        return ChunkProtection.UNSET;
+    }
+}
@@ -0,0 +1,216 @@
+package com.illuzionzstudios.custommining.settings;
+
+import com.illuzionzstudios.mist.Logger;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.*;
+
+/**
+ * Hardness and break time overrides from {@code overrides.yml}, compiled
+ * into flat tables so finding the override for a block is a few array reads.
+ * <p>
+ * Each rule matches materials, optionally only in some worlds and between
+ * two y levels. The y range is split into buckets at every rule's bounds so
+ * a bucket is always fully in or out of a rule. The table for each world then
+ * holds the rule for every material and bucket, later rules replacing
+ * earlier ones. Override 0 means no rule matched
+ */
+public final class HardnessOverrides {
+
+    /**
+     * No overrides at all
+     */
+    public static final HardnessOverrides EMPTY = new HardnessOverrides(new String[0], null, 0, null, new float[]{Float.NaN}, new float[]{1});
+
+    /**
+     * Lowest and highest y levels told apart, anything
+     * outside is treated as the nearest of these
+     */
+    private static final int MIN_Y = -2048;
+    private static final int MAX_Y = 2047;
+
+    /**
+     * Names of worlds rules are limited to. World index 0 is every other
+     * world so a world's index is it's position here plus one
+     */
+    private final String[] worlds;
+
+    /**
+     * Bucket of each y level, indexed by y - {@link #MIN_Y}
+     */
+    private final short[] buckets;
+
+    private final int bucketCount;
+
+    /**
+     * Rule of each material and bucket per world index, null if there are no rules
+     */
+    private final short[][] table;
+
+    /**
+     * Hardness set by each rule, NaN to keep the default
+     */
+    private final float[] hardness;
+
+    /**
+     * Amount each rule multiplies break times by
+     */
+    private final float[] multiplier;
+
+    private HardnessOverrides(String[] worlds, short[] buckets, int bucketCount, short[][] table, float[] hardness, float[] multiplier) {
+        this.worlds = worlds;
+        this.buckets = buckets;
+        this.bucketCount = bucketCount;
+        this.table = table;
+        this.hardness = hardness;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Get the rule that applies to a block
+     *
+     * @param world World of the block
+     * @param type  Material of the block
+     * @param y     Y of the block
+     * @return The override, 0 if none
+     */
+    public int getOverride(World world, Material type, int y) {
+        if (table == null) return 0;
+
+        int bucket = buckets[Math.max(MIN_Y, Math.min(MAX_Y, y)) - MIN_Y];
+        return table[getWorldIndex(world)][type.ordinal() * bucketCount + bucket];
+    }
+
+    /**
+     * @param override The override from {@link #getOverride}
+     * @param hardness The default hardness of the block
+     * @return Hardness to use for the block
+     */
+    public float getHardness(int override, float hardness) {
+        float set = this.hardness[override];
+        return Float.isNaN(set) ? hardness : set;
+    }
+
+    /**
+     * @param override The override from {@link #getOverride}
+     * @return Amount to multiply the break time by
+     */
+    public float getMultiplier(int override) {
+        return multiplier[override];
+    }
+
+    /**
+     * @return Amount of rules
+     */
+    public int size() {
+        return hardness.length - 1;
+    }
+
+    private int getWorldIndex(World world) {
+        String name = world.getName();
+        for (int i = 0; i < worlds.length; i++) {
+            if (worlds[i].equals(name)) return i + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Compile the rules in a config section
+     *
+     * @param section Section with a sub section for each rule, may be null
+     * @return The compiled overrides
+     */
+    public static HardnessOverrides compile(ConfigurationSection section) {
+        if (section == null) return EMPTY;
+
+        List<Rule> rules = new ArrayList<>();
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection rule = section.getConfigurationSection(name);
+            if (rule == null) continue;
+
+            Set<Material> materials = EnumSet.noneOf(Material.class);
+            for (String materialName : rule.getStringList("Materials")) {
+                Material material = Material.matchMaterial(materialName);
+                if (material == null) {
+                    Logger.severe("Unknown material " + materialName + " in hardness override " + name);
+                    continue;
+                }
+                materials.add(material);
+            }
+
+            if (materials.isEmpty()) continue;
+
+            int minY = Math.max(MIN_Y, rule.getInt("Min Y", MIN_Y));
+            int maxY = Math.min(MAX_Y, rule.getInt("Max Y", MAX_Y));
+            if (minY > maxY) continue;
+
+            float hardness = rule.contains("Hardness") ? (float) rule.getDouble("Hardness") : Float.NaN;
+            float multiplier = (float) rule.getDouble("Break Time Multiplier", 1);
+
+            rules.add(new Rule(materials, rule.getStringList("Worlds"), minY, maxY, hardness, multiplier));
+        }
+
+        if (rules.isEmpty()) return EMPTY;
+        if (rules.size() >= Short.MAX_VALUE) {
+            Logger.severe("Too many hardness overrides, only the first " + (Short.MAX_VALUE - 1) + " are used");
+            rules = rules.subList(0, Short.MAX_VALUE - 1);
+        }
+
+        // Split y levels at every rule's bounds
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(MIN_Y);
+        List<String> worlds = new ArrayList<>();
+        for (Rule rule : rules) {
+            bounds.add(rule.minY);
+            if (rule.maxY < MAX_Y) bounds.add(rule.maxY + 1);
+
+            for (String world : rule.worlds) {
+                if (!worlds.contains(world)) worlds.add(world);
+            }
+        }
+
+        int[] starts = bounds.stream().mapToInt(Integer::intValue).toArray();
+        short[] buckets = new short[MAX_Y - MIN_Y + 1];
+        for (int i = 0; i < starts.length; i++) {
+            int end = i + 1 < starts.length ? starts[i + 1] : MAX_Y + 1;
+            Arrays.fill(buckets, starts[i] - MIN_Y, end - MIN_Y, (short) i);
+        }
+
+        int bucketCount = starts.length;
+        short[][] table = new short[worlds.size() + 1][Material.values().length * bucketCount];
+        float[] hardness = new float[rules.size() + 1];
+        float[] multiplier = new float[rules.size() + 1];
+        hardness[0] = Float.NaN;
+        multiplier[0] = 1;
+
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            short override = (short) (i + 1);
+            hardness[override] = rule.hardness;
+            multiplier[override] = rule.multiplier;
+
+            for (int world = 0; world < table.length; world++) {
+                // Rules without worlds apply everywhere
+                if (!rule.worlds.isEmpty() && (world == 0 || !rule.worlds.contains(worlds.get(world - 1)))) continue;
+
+                for (Material material : rule.materials) {
+                    int offset = material.ordinal() * bucketCount;
+                    for (int bucket = 0; bucket < bucketCount; bucket++) {
+                        if (starts[bucket] >= rule.minY && starts[bucket] <= rule.maxY)
+                            table[world][offset + bucket] = override;
+                    }
+                }
+            }
+        }
+
+        return new HardnessOverrides(worlds.toArray(new String[0]), buckets, bucketCount, table, hardness, multiplier);
+    }
+
+    /**
+     * A rule read from the config
+     */
+    private record Rule(Set<Material> materials, List<String> worlds, int minY, int maxY, float hardness, float multiplier) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.illuzionzstudios.custommining.settings;
+
+/**
+ * Snapshot of the settings read while mining. Built once whenever
+ * {@link Settings} are loaded and swapped in whole, so tasks ticking on
+ * other threads read plain final fields and always see one consistent
+ * config. Times are already converted to ticks.
+ * <p>
+ * Settings only read on startup are still read from {@link Settings}
+ *
+ * @param saveProgress          If progress is kept when a player stops mining
+ * @param cleanupDelayTicks     Ticks paused progress is kept for
+ * @param cleanupThresholdTicks Ticks a task can run before it's removed
+ * @param sharedProgress        If players mining the same block share progress
+ * @param broadcastAnimation    If everyone nearby sees break animations
+ * @param broadcastRadius       Blocks away break animations are seen from
+ * @param breakBudgetNanos      Nanoseconds each tick can spend breaking blocks
+ * @param fatigueResyncTicks    Ticks between resending mining fatigue
+ * @param governor              If cosmetics are scaled back when lagging
+ * @param governorLevel1        Milliseconds per tick to step up to governor level 1
+ * @param governorLevel2        Milliseconds per tick to step up to governor level 2
+ * @param governorLevel3        Milliseconds per tick to step up to governor level 3
+ * @param nettyInterceptor      If dig packets are read from the connection
+ * @param persistExpirySeconds  Seconds saved progress is kept on disk
+ */
+public record MiningConfig(boolean saveProgress, int cleanupDelayTicks, int cleanupThresholdTicks, boolean sharedProgress,
+                           boolean broadcastAnimation, int broadcastRadius, long breakBudgetNanos, int fatigueResyncTicks,
+                           boolean governor, double governorLevel1, double governorLevel2, double governorLevel3,
+                           boolean nettyInterceptor, int persistExpirySeconds) {
+
+    /**
+     * The default settings, used until a config is loaded
+     */
+    public static final MiningConfig DEFAULTS = new MiningConfig(true, 10 * 20, 300 * 20, false,
+            true, 64, 5_000_000L, 30 * 20,
+            true, 45, 55, 70, false, 3600);
+
+    /**
+     * The snapshot in use
+     */
+    private static volatile MiningConfig current = DEFAULTS;
+
+    /**
+     * @param level Governor level currently at
+     * @return Milliseconds per tick to step up from the level, infinite if it can't
+     */
+    public double governorThreshold(int level) {
+        return switch (level) {
+            case 0 -> governorLevel1;
+            case 1 -> governorLevel2;
+            case 2 -> governorLevel3;
+            default -> Double.POSITIVE_INFINITY;
+        };
+    }
+
+    /**
+     * @return The snapshot in use
+     */
+    public static MiningConfig get() {
+        return current;
+    }
+
+    /**
+     * Swap in a new snapshot. Running tasks use it from their next tick
+     *
+     * @param config The new snapshot
+     */
+    public static void set(MiningConfig config) {
+        current = config;
+    }
+
+    /**
+     * @return A snapshot of the loaded {@link Settings}
+     */
+    public static MiningConfig fromSettings() {
+        double[] thresholds = parseThresholds(Settings.MINING_GOVERNOR_THRESHOLDS.getString());
+
+        return new MiningConfig(
+                Settings.MINING_SAVE_PROGRESS.getBoolean(),
+                Settings.MINING_CLEANUP_DELAY.getInt() * 20,
+                Settings.MINING_CLEANUP_THRESHOLD.getInt() * 20,
+                Settings.MINING_SHARED_PROGRESS.getBoolean(),
+                Settings.MINING_BROADCAST_ANIMATION.getBoolean(),
+                Settings.MINING_BROADCAST_RADIUS.getInt(),
+                (long) (Settings.MINING_BREAK_BUDGET.getDouble() * 1_000_000),
+                Math.max(1, Settings.MINING_FATIGUE_RESYNC.getInt()) * 20,
+                Settings.MINING_GOVERNOR.getBoolean(),
+                thresholds[0],
+                thresholds[1],
+                thresholds[2],
+                Settings.MINING_NETTY_INTERCEPTOR.getBoolean(),
+                Settings.MINING_PERSIST_EXPIRY.getInt());
+    }
+
+    /**
+     * Parse the thresholds of the three governor levels from a comma separated
+     * list, skipping any that aren't valid. Levels without one are never reached
+     */
+    private static double[] parseThresholds(String value) {
+        double[] thresholds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        int count = 0;
+
+        for (String part : value.split(",")) {
+            if (count == thresholds.length) break;
+
+            try {
+                thresholds[count] = Double.parseDouble(part.trim());
+                count++;
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return thresholds;
+    }
+}
@@ -39,10 +39,52 @@ public class Settings extends PluginSettings {
             "If you have long break times set this high so it doesn't clear as they're breaking.",
             "Default clear every 5 minutes of old tasks");
 
+    public static final ConfigSetting MINING_SHARED_PROGRESS = MINING_GROUP.create("Mining.Shared Progress", false,
+            "Players mining the same block share one progress instead of each",
+            "having their own. Everyone digging adds their own break speed so",
+            "groups break blocks faster, and one event lists who helped");
+
+    public static final ConfigSetting MINING_PERSIST_PROGRESS = MINING_GROUP.create("Mining.Persist Progress", false,
+            "Keep progress of paused blocks on disk so it survives restarts, reloads",
+            "and chunks unloading. Progress is per block, anyone can resume it");
+
+    public static final ConfigSetting MINING_PERSIST_EXPIRY = MINING_GROUP.create("Mining.Persist Expiry", 3600,
+            "Seconds after a block was last mined that it's saved progress is forgotten");
+
+    public static final ConfigSetting MINING_NETTY_INTERCEPTOR = MINING_GROUP.create("Mining.Netty Interceptor", false,
+            "Read dig packets straight from each player's connection instead of",
+            "through ProtocolLib, which is cheaper when lots of players are mining.",
+            "Falls back to ProtocolLib for any player it can't be added for.",
+            "Changing this needs a restart");
+
+    public static final ConfigSetting MINING_GOVERNOR = MINING_GROUP.create("Mining.Governor", true,
+            "When the server is lagging, show fewer animation stages, send animations",
+            "to a smaller radius, spawn fewer break particles and resend fatigue less often.",
+            "Break times are never changed");
+
+    public static final ConfigSetting MINING_GOVERNOR_THRESHOLDS = MINING_GROUP.create("Mining.Governor Thresholds", "45, 55, 70",
+            "Milliseconds per tick at which to step up each level of the governor.",
+            "Measured as the time the server spends on each tick, averaged over",
+            "the last 5 seconds. Past 50 the server can't keep up with 20 ticks a second");
+
+    public static final ConfigSetting MINING_BREAK_BUDGET = MINING_GROUP.create("Mining.Break Budget", 5.0,
+            "Milliseconds each tick can spend breaking blocks that finished mining.",
+            "Breaks over the budget wait for the next tick so lots of blocks",
+            "breaking at once doesn't lag the server");
+
     public static final ConfigSetting MINING_BROADCAST_ANIMATION = MINING_GROUP.create("Mining.Broadcast Animation", true,
             "If set to true, all players in the radius when breaking a block",
             "will see the breaking animation");
 
+    public static final ConfigSetting MINING_BROADCAST_RADIUS = MINING_GROUP.create("Mining.Broadcast Radius", 64,
+            "How many blocks away players can be to see a breaking animation",
+            "when Broadcast Animation is enabled");
+
+    public static final ConfigSetting MINING_FATIGUE_RESYNC = MINING_GROUP.create("Mining.Fatigue Resync", 30,
+            "Every how many seconds to resend the mining fatigue that hides the",
+            "default breaking animation. It is already resent whenever something",
+            "removes it, so this is only a safety net");
+
     public static final ConfigSetting MODIFIER_LIQUID = MODIFIERS_GROUP.create("Modifiers.Liquid", -5.0,
             "Controls the modifier on break speed when the player's head is underwater.",
             "Set to a double for percent increase, so 1.25, for a 25% increase",
@@ -52,10 +94,35 @@ public class Settings extends PluginSettings {
     public static final ConfigSetting MODIFIER_AIR = MODIFIERS_GROUP.create("Modifiers.Air", -5.0,
             "Controls the decrease of break speed when feet aren't touching the ground.");
 
+    public static final ConfigSetting MODIFIER_PERMISSION_TIERS = MODIFIERS_GROUP.create("Modifiers.Permission Tiers", "",
+            "Speed multipliers for players with a permission, as node=multiplier",
+            "separated by commas. For example \"custommining.speed.vip=1.25, custommining.speed.mvp=1.5\".",
+            "Players with more than one get their best. Up to 15 tiers keep break times cached");
+
+    public static final ConfigSetting MODIFIER_PERMISSION_REFRESH = MODIFIERS_GROUP.create("Modifiers.Permission Refresh", 60,
+            "Every how many seconds to check players' permission tiers again.",
+            "They're also checked on join and changing worlds");
+
     public static final ConfigSetting UNBREAKABLE_REGIONS = MAIN_GROUP.create("Main.Unbreakable Regions", true,
             "Make it so if World Guard makes a region unbreakable, they appear unbreakable",
             "like bedrock. (Required WorldGuard)");
 
+    public static final ConfigSetting REGION_REFRESH = MAIN_GROUP.create("Main.Region Refresh", 30,
+            "Every how many seconds to look up protected regions again. They're",
+            "already looked up again after region commands, this catches changes",
+            "made any other way");
+
+    public static final ConfigSetting METRICS_ENDPOINT = MAIN_GROUP.create("Main.Metrics Endpoint", false,
+            "Serve mining stats in Prometheus format on http://127.0.0.1:<port>/metrics.",
+            "Only reachable from the machine the server runs on");
+
+    public static final ConfigSetting METRICS_PORT = MAIN_GROUP.create("Main.Metrics Port", 9464,
+            "Port for the metrics endpoint");
+
+    public static final ConfigSetting DEBUG = MAIN_GROUP.create("Main.Debug", false,
+            "Time each mining modifier and show it in /custommining stats.",
+            "Adds a little overhead to every break time calculation");
+
     public Settings(SpigotPlugin plugin) {
         super(plugin);
     }
@@ -65,6 +132,9 @@ public class Settings extends PluginSettings {
         MINING_GROUP.load();
         MODIFIERS_GROUP.load();
         MAIN_GROUP.load();
+
+        // Publish what mining reads in one go
+        MiningConfig.set(MiningConfig.fromSettings());
     }
 
 }
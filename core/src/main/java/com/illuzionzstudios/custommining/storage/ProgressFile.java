@@ -0,0 +1,281 @@
+package com.illuzionzstudios.custommining.storage;
+
+import com.illuzionzstudios.custommining.util.LongLongMap;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Mining progress of one world kept on disk.
+ * <p>
+ * The file is an append only log of fixed size records: packed position
+ * (8 bytes), percent as float bits (4 bytes) and last touch in epoch seconds
+ * (4 bytes). A record with {@link #TOMBSTONE} as it's percent removes the
+ * position. Loading replays the log into an index in memory, and compacting
+ * rewrites the file with only the live entries, so both only cost as much
+ * as there are entries
+ */
+public class ProgressFile {
+
+    /**
+     * Start of every file, "CMPR"
+     */
+    private static final int MAGIC = 0x434D5052;
+
+    private static final int VERSION = 1;
+
+    /**
+     * Percent bits marking a removed position, a NaN
+     */
+    private static final int TOMBSTONE = 0xFFFFFFFF;
+
+    /**
+     * Returned from the index when a position has no entry
+     */
+    private static final long NONE = -1L;
+
+    /**
+     * Bytes in the header and in each record
+     */
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 16;
+
+    private final Path path;
+
+    /**
+     * Packed position to percent bits high and last touch low
+     */
+    private final LongLongMap index = new LongLongMap();
+
+    /**
+     * Records waiting to be written
+     */
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /**
+     * Records in the file, live or not
+     */
+    private int records;
+
+    /**
+     * Set once the file has been read, until then the index is empty
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Held while touching the file so flushes and compactions
+     * happen in order without blocking updates to the index
+     */
+    private final Object ioLock = new Object();
+
+    public ProgressFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Read the file into memory if not yet done
+     */
+    public synchronized void load() throws IOException {
+        if (loaded) return;
+
+        if (!Files.exists(path)) {
+            loaded = true;
+            return;
+        }
+
+        // End of the last complete record
+        long end = HEADER_SIZE;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a progress file " + path);
+
+            while (true) {
+                long key;
+                int percent;
+                int touched;
+                try {
+                    key = in.readLong();
+                    percent = in.readInt();
+                    touched = in.readInt();
+                } catch (EOFException e) {
+                    // End of file, or a record cut off by a crash
+                    break;
+                }
+
+                records++;
+                end += RECORD_SIZE;
+                if (percent == TOMBSTONE) {
+                    index.remove(key, NONE);
+                } else {
+                    index.put(key, pack(percent, touched));
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Progress file has no header " + path, e);
+        }
+
+        // Cut off a record left half written by a crash,
+        // otherwise every record appended after it is misaligned
+        if (Files.size(path) > end) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+
+        loaded = true;
+    }
+
+    /**
+     * Forget anything read and start empty, after the file couldn't be loaded
+     */
+    public synchronized void reset() {
+        index.clear();
+        pending = new ByteArrayOutputStream();
+        records = 0;
+        loaded = true;
+    }
+
+    /**
+     * @return If the file has been read into memory
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param expiry Seconds after being touched progress is forgotten
+     * @return Percent mined of a position, or -1 if none
+     */
+    public synchronized float get(long key, long now, int expiry) {
+        long entry = index.get(key, NONE);
+        if (entry == NONE) return -1;
+
+        if (now - (int) entry > expiry) return -1;
+        return Float.intBitsToFloat((int) (entry >>> 32));
+    }
+
+    /**
+     * Set the progress of a position
+     */
+    public synchronized void put(long key, float percent, long now) {
+        int bits = Float.floatToIntBits(percent);
+        index.put(key, pack(bits, (int) now));
+        append(key, bits, (int) now);
+    }
+
+    /**
+     * Remove the progress of a position if there is any
+     */
+    public synchronized void remove(long key, long now) {
+        if (index.remove(key, NONE) == NONE) return;
+        append(key, TOMBSTONE, (int) now);
+    }
+
+    /**
+     * Write pending records to the end of the file
+     */
+    public void flush() throws IOException {
+        synchronized (ioLock) {
+            byte[] bytes;
+            synchronized (this) {
+                if (pending.size() == 0) return;
+                bytes = pending.toByteArray();
+                pending = new ByteArrayOutputStream();
+            }
+
+            boolean header = !Files.exists(path) || Files.size(path) == 0;
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                if (header) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                }
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * @return If the file holds enough dead records to be worth compacting
+     */
+    public synchronized boolean needsCompaction() {
+        return records > 64 && records > index.size() * 2;
+    }
+
+    /**
+     * Rewrite the file with only entries that haven't expired
+     *
+     * @param expiry Seconds after being touched progress is forgotten
+     */
+    public void compact(long now, int expiry) throws IOException {
+        synchronized (ioLock) {
+            long[] keys;
+            long[] entries;
+            synchronized (this) {
+                // Drop expired entries from memory too
+                LongLongMap live = new LongLongMap(index.size());
+                index.forEach((key, entry) -> {
+                    if (now - (int) entry <= expiry) live.put(key, entry);
+                });
+                index.clear();
+                live.forEach(index::put);
+
+                keys = new long[live.size()];
+                entries = new long[live.size()];
+                int[] i = {0};
+                live.forEach((key, entry) -> {
+                    keys[i[0]] = key;
+                    entries[i[0]++] = entry;
+                });
+
+                // Everything pending is in the snapshot
+                pending = new ByteArrayOutputStream();
+                records = keys.length;
+            }
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (int i = 0; i < keys.length; i++) {
+                    out.writeLong(keys[i]);
+                    out.writeInt((int) (entries[i] >>> 32));
+                    out.writeInt((int) entries[i]);
+                }
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * @return Amount of positions with progress
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private void append(long key, int percent, int touched) {
+        records++;
+        try {
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeLong(key);
+            out.writeInt(percent);
+            out.writeInt(touched);
+        } catch (IOException e) {
+            // Can't happen writing to memory
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long pack(int percent, int touched) {
+        return (long) percent << 32 | (touched & 0xFFFFFFFFL);
+    }
+}
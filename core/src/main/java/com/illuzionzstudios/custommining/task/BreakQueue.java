@@ -0,0 +1,116 @@
+package com.illuzionzstudios.custommining.task;
+
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.mist.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands completed {@link MiningTask}'s from the engine to the main thread.
+ * <p>
+ * Breaking a block fires events, drops items and spawns particles so
+ * it has to be sync. Rather than scheduling a job per break, completed
+ * tasks are queued here and drained by one job each tick under a time
+ * budget. Anything over the budget waits for the next tick, so a burst
+ * of breaks is spread out instead of causing a lag spike
+ */
+public class BreakQueue {
+
+    /**
+     * Tasks waiting to break their block. Engine produces, main thread consumes
+     */
+    private final Queue<MiningTask> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Amount of tasks in the queue
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * Ticks that ran out of budget before the queue was empty
+     */
+    private final LongAdder spills = new LongAdder();
+
+    /**
+     * Breaks carried over to a later tick
+     */
+    private final LongAdder carried = new LongAdder();
+
+    /**
+     * Queue a task to break it's block. Safe from any thread
+     *
+     * @param task The completed task
+     */
+    public void offer(MiningTask task) {
+        queue.add(task);
+        depth.incrementAndGet();
+    }
+
+    /**
+     * Break queued blocks until the queue is empty or the
+     * budget is used up. Only called from the main thread
+     */
+    public void drain() {
+        if (depth.get() == 0) return;
+
+        long budget = MiningConfig.get().breakBudgetNanos();
+        long start = System.nanoTime();
+
+        MiningTask task;
+        while ((task = queue.poll()) != null) {
+            depth.decrementAndGet();
+
+            // Block was already broken by another task finishing at the same time
+            if (!task.isCancelled()) {
+                try {
+                    task.complete();
+                } catch (Exception e) {
+                    // Don't let one break stop the rest
+                    Logger.severe("Error breaking block");
+                    e.printStackTrace();
+                }
+            }
+
+            // Always do at least one so the queue keeps moving
+            if (System.nanoTime() - start >= budget) break;
+        }
+
+        int left = depth.get();
+        if (left > 0) {
+            spills.increment();
+            carried.add(left);
+        }
+    }
+
+    /**
+     * Remove everything queued
+     */
+    public void clear() {
+        queue.clear();
+        depth.set(0);
+    }
+
+    /**
+     * @return Amount of breaks waiting
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * @return Ticks that ran out of budget before the queue was empty
+     */
+    public long getSpills() {
+        return spills.sum();
+    }
+
+    /**
+     * @return Breaks carried over to a later tick
+     */
+    public long getCarried() {
+        return carried.sum();
+    }
+}
@@ -0,0 +1,97 @@
+package com.illuzionzstudios.custommining.task;
+
+import com.illuzionzstudios.custommining.DigListener;
+import com.illuzionzstudios.custommining.controller.MiningController;
+import com.illuzionzstudios.custommining.player.MiningSession;
+import com.illuzionzstudios.custommining.util.BlockKey;
+import org.bukkit.entity.Player;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hands dig packets from network threads over to the {@link MiningEngine}.
+ * <p>
+ * Packet listeners only decode the dig type and position and offer them
+ * here, so network threads never touch the world or controller state.
+ * The engine drains the queue once per tick, processing each player's
+ * digs in the order they were received
+ */
+public class DigQueue implements DigListener {
+
+    /**
+     * Player started digging a block
+     */
+    public static final int START = DigListener.START;
+
+    /**
+     * Player stopped digging before the block broke
+     */
+    public static final int ABORT = DigListener.ABORT;
+
+    /**
+     * Player finished digging a block
+     */
+    public static final int STOP = DigListener.STOP;
+
+    /**
+     * Digs waiting to be processed. Many network
+     * threads produce, only the engine consumes
+     */
+    private final Queue<Dig> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Digs read by a connection interceptor are queued like any other
+     */
+    @Override
+    public void onDig(Player player, int type, int x, int y, int z) {
+        offer(player, type, x, y, z);
+    }
+
+    /**
+     * Queue a dig to be processed on the next tick. Safe from any thread
+     *
+     * @param player The player digging
+     * @param type   Type of dig, one of {@link #START}, {@link #ABORT} or {@link #STOP}
+     * @param x      X of the block
+     * @param y      Y of the block
+     * @param z      Z of the block
+     */
+    public void offer(Player player, int type, int x, int y, int z) {
+        queue.add(new Dig(player, type, BlockKey.of(x, y, z)));
+    }
+
+    /**
+     * Process every queued dig. Only called from the engine thread
+     */
+    public void drain() {
+        Dig dig;
+        while ((dig = queue.poll()) != null) {
+            // Never create a session here, the player may have just left
+            MiningSession session = MiningController.INSTANCE.findSession(dig.player.getUniqueId());
+            if (session == null || !dig.player.isOnline()) continue;
+
+            if (dig.type == START) {
+                session.setDigActive(true);
+                continue;
+            }
+
+            // Stop ticking and pause the abandoned block
+            session.setDigActive(false);
+            MiningController.INSTANCE.pauseBreaking(dig.player, dig.player.getWorld(), dig.key);
+        }
+    }
+
+    /**
+     * Remove everything queued
+     */
+    public void clear() {
+        queue.clear();
+    }
+
+    /**
+     * A decoded dig packet
+     */
+    private record Dig(Player player, int type, long key) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.illuzionzstudios.custommining.task;
+
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.PersistenceController;
+import com.illuzionzstudios.custommining.player.DormantProgress;
+import com.illuzionzstudios.custommining.player.MiningSession;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.custommining.util.BlockKey;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coarse timer wheel that forgets {@link DormantProgress} once it's been
+ * left for the cleanup delay.
+ * <p>
+ * Each slot covers one second. Scheduling drops an entry in the slot it
+ * expires in, and each second the engine only looks at the current slot,
+ * so expiring progress costs nothing until it's due. Progress resumed in
+ * the meantime is skipped when it's slot comes up
+ */
+public class DormantWheel {
+
+    /**
+     * Amount of slots, must be a power of two.
+     * Longer delays go around the wheel more than once
+     */
+    private static final int SLOTS = 64;
+
+    private final List<List<Expiry>> slots = new ArrayList<>(SLOTS);
+
+    /**
+     * Second the wheel is at
+     */
+    private long second;
+
+    public DormantWheel() {
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Forget progress after a delay. Safe from any thread
+     *
+     * @param session  Session holding the progress
+     * @param world    World of the block
+     * @param key      Packed position of the block
+     * @param pausedAt Engine tick it was paused at
+     * @param delay    Seconds until it's forgotten
+     */
+    public synchronized void schedule(MiningSession session, World world, long key, long pausedAt, int delay) {
+        delay = Math.max(1, delay);
+        long due = second + delay;
+        slots.get((int) (due & (SLOTS - 1))).add(new Expiry(session, world, key, pausedAt, (delay - 1) / SLOTS));
+    }
+
+    /**
+     * Expire everything due. Called every tick by the {@link MiningEngine}
+     *
+     * @param tick The current engine tick
+     */
+    public void tick(long tick) {
+        if (tick % 20 != 0) return;
+
+        List<Expiry> due;
+        synchronized (this) {
+            second++;
+            List<Expiry> slot = slots.get((int) (second & (SLOTS - 1)));
+            if (slot.isEmpty()) return;
+
+            due = new ArrayList<>();
+            for (int i = 0; i < slot.size(); ) {
+                Expiry expiry = slot.get(i);
+                if (expiry.rounds > 0) {
+                    expiry.rounds--;
+                    i++;
+                    continue;
+                }
+
+                due.add(expiry);
+                slot.set(i, slot.get(slot.size() - 1));
+                slot.remove(slot.size() - 1);
+            }
+        }
+
+        boolean broadcast = MiningConfig.get().broadcastAnimation();
+        for (Expiry expiry : due) {
+            if (!expiry.session.getDormant().expire(expiry.world, expiry.key, expiry.pausedAt)) continue;
+
+            // Saved when it was paused, so the next click doesn't bring it back
+            PersistenceController.INSTANCE.removeProgress(expiry.world, expiry.key);
+
+            // Clear the damage left showing on the block
+            AnimationController.INSTANCE.queue(expiry.world.getBlockAt(BlockKey.getX(expiry.key), BlockKey.getY(expiry.key), BlockKey.getZ(expiry.key)),
+                    10, broadcast ? null : expiry.session.getPlayer());
+        }
+    }
+
+    /**
+     * Remove everything scheduled
+     */
+    public synchronized void clear() {
+        for (List<Expiry> slot : slots) {
+            slot.clear();
+        }
+    }
+
+    /**
+     * Progress waiting to expire
+     */
+    private static final class Expiry {
+
+        private final MiningSession session;
+        private final World world;
+        private final long key;
+        private final long pausedAt;
+
+        /**
+         * Times left to go around the wheel
+         */
+        private int rounds;
+
+        private Expiry(MiningSession session, World world, long key, long pausedAt, int rounds) {
+            this.session = session;
+            this.world = world;
+            this.key = key;
+            this.pausedAt = pausedAt;
+            this.rounds = rounds;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.illuzionzstudios.custommining.task;
+
+import com.illuzionzstudios.custommining.CustomMining;
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.FatigueController;
+import com.illuzionzstudios.custommining.controller.StatsController;
+import com.illuzionzstudios.mist.Logger;
+import com.illuzionzstudios.mist.controller.PluginController;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Central engine that ticks every active {@link MiningTask}.
+ * <p>
+ * Instead of each task being it's own repeating bukkit task, we have
+ * one async task that advances all of them in a single pass every tick.
+ * Tasks only do real work (sending animations, breaking) when their
+ * damage stage changes or they complete, so the cost of a tick is mostly
+ * a counter increment per task.
+ */
+public enum MiningEngine implements PluginController<CustomMining> {
+    INSTANCE;
+
+    /**
+     * Tasks submitted since the last tick. Tasks can be submitted from
+     * any thread so they are handed over through here and only
+     * ever touched by the engine thread after
+     */
+    private final Queue<MiningTask> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * All tasks currently being advanced. Only accessed from the engine thread
+     */
+    private final ArrayList<MiningTask> active = new ArrayList<>();
+
+    /**
+     * Dig packets waiting to be processed
+     */
+    @Getter
+    private final DigQueue digQueue = new DigQueue();
+
+    /**
+     * Completed tasks waiting to break their block
+     */
+    @Getter
+    private final BreakQueue breakQueue = new BreakQueue();
+
+    /**
+     * Forgets paused progress after the cleanup delay
+     */
+    @Getter
+    private final DormantWheel dormantWheel = new DormantWheel();
+
+    /**
+     * The single bukkit task driving the engine
+     */
+    private BukkitTask engineTask;
+
+    /**
+     * Main thread task breaking completed blocks
+     */
+    private BukkitTask breakTask;
+
+    /**
+     * Amount of tasks advanced on the last tick
+     */
+    @Getter
+    private volatile int activeCount;
+
+    /**
+     * Amount of advanced tasks that are paused
+     */
+    @Getter
+    private volatile int pausedCount;
+
+    /**
+     * Ticks the engine has run for
+     */
+    @Getter
+    private volatile long currentTick;
+
+    @Override
+    public void initialize(CustomMining plugin) {
+        this.engineTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, 0L, 1L);
+        this.breakTask = Bukkit.getScheduler().runTaskTimer(plugin, breakQueue::drain, 1L, 1L);
+    }
+
+    @Override
+    public void stop(CustomMining plugin) {
+        if (engineTask != null) {
+            engineTask.cancel();
+            engineTask = null;
+        }
+
+        if (breakTask != null) {
+            breakTask.cancel();
+            breakTask = null;
+        }
+
+        pending.clear();
+        active.clear();
+        digQueue.clear();
+        breakQueue.clear();
+        dormantWheel.clear();
+        activeCount = 0;
+        pausedCount = 0;
+    }
+
+    /**
+     * Start advancing a task from the next tick
+     *
+     * @param task The task to start
+     */
+    public void submit(MiningTask task) {
+        pending.add(task);
+    }
+
+    /**
+     * Stop a task from being advanced. The task is dropped
+     * from the engine on the next tick
+     *
+     * @param task The task to stop
+     */
+    public void cancel(MiningTask task) {
+        task.cancel();
+    }
+
+    /**
+     * Advance every task by one tick. Called by the engine task,
+     * only call directly when driving the engine without a scheduler
+     */
+    public void tick() {
+        long start = System.nanoTime();
+        currentTick++;
+
+        // Players starting and stopping digging since last tick
+        digQueue.drain();
+
+        // Take on new tasks
+        MiningTask task;
+        while ((task = pending.poll()) != null) {
+            active.add(task);
+        }
+
+        int paused = 0;
+        for (int i = 0; i < active.size(); ) {
+            task = active.get(i);
+
+            boolean alive;
+            try {
+                alive = !task.isCancelled() && task.tick();
+            } catch (Exception e) {
+                // Don't let one broken task stop the rest from ticking
+                Logger.severe("Error ticking mining task, dropping it");
+                e.printStackTrace();
+                alive = false;
+            }
+
+            if (alive) {
+                if (!task.isEnabled()) paused++;
+                i++;
+                continue;
+            }
+
+            // Swap remove so we don't shift the whole list
+            int last = active.size() - 1;
+            active.set(i, active.get(last));
+            active.remove(last);
+        }
+
+        activeCount = active.size();
+        pausedCount = paused;
+
+        // Forget paused progress that's been left too long
+        dormantWheel.tick(currentTick);
+
+        // Put back any fatigue that was removed
+        FatigueController.INSTANCE.tick(currentTick);
+
+        // Send out everything that changed this tick
+        AnimationController.INSTANCE.flush();
+
+        StatsController.INSTANCE.tick(currentTick, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,266 @@
+package com.illuzionzstudios.custommining.task;
+
+import com.illuzionzstudios.custommining.util.BlockKey;
+import com.illuzionzstudios.custommining.util.LongObjectMap;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Thread safe registry of every active and paused {@link MiningTask}.
+ * <p>
+ * Tasks are indexed by world and packed block position, with tasks
+ * of different players on the same block chained together through
+ * {@link MiningTask#getNextAtPosition()}. A secondary index keeps
+ * each player's tasks for cleanup when they leave.
+ * <p>
+ * Lookups never create {@link org.bukkit.Location} objects and only lock
+ * the stripe of the position being touched
+ */
+public class MiningRegistry {
+
+    /**
+     * Amount of lock stripes per world, must be a power of two
+     */
+    private static final int STRIPES = 32;
+
+    /**
+     * Position tables for each world
+     */
+    private final Map<UUID, WorldTable> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Tasks each player has running or paused
+     */
+    private final Map<UUID, List<MiningTask>> players = new ConcurrentHashMap<>();
+
+    /**
+     * Add a task to the registry
+     *
+     * @param task The task to add
+     */
+    public void register(MiningTask task) {
+        WorldTable table = worlds.computeIfAbsent(task.getWorld().getUID(), uuid -> new WorldTable());
+        LongObjectMap<MiningTask> stripe = table.stripe(task.getKey());
+
+        synchronized (stripe) {
+            task.setNextAtPosition(stripe.put(task.getKey(), task));
+        }
+
+        if (task.getPlayer() == null) return;
+
+        UUID uuid = task.getPlayer().getUniqueId();
+        while (true) {
+            List<MiningTask> list = players.computeIfAbsent(uuid, id -> new ArrayList<>(4));
+            synchronized (list) {
+                // Make sure the list wasn't dropped while we were getting it
+                if (players.get(uuid) == list) {
+                    list.add(task);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the task a player has on a block
+     *
+     * @param player The player mining the block
+     * @param world  World the block is in
+     * @param key    Packed position of the block
+     * @return The task or null if none
+     */
+    public MiningTask get(Player player, World world, long key) {
+        WorldTable table = worlds.get(world.getUID());
+        if (table == null) return null;
+
+        LongObjectMap<MiningTask> stripe = table.stripe(key);
+        synchronized (stripe) {
+            for (MiningTask task = stripe.get(key); task != null; task = task.getNextAtPosition()) {
+                if (task.getPlayer() == player) return task;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param world World the block is in
+     * @param key   Packed position of the block
+     * @return If any task, running or paused, is on the block
+     */
+    public boolean contains(World world, long key) {
+        WorldTable table = worlds.get(world.getUID());
+        if (table == null) return false;
+
+        LongObjectMap<MiningTask> stripe = table.stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key) != null;
+        }
+    }
+
+    /**
+     * Remove every task on a block. The removed tasks stay chained
+     * together so can be walked through {@link MiningTask#getNextAtPosition()}
+     *
+     * @param world World the block is in
+     * @param key   Packed position of the block
+     * @return The first task removed or null if none
+     */
+    public MiningTask removeAll(World world, long key) {
+        WorldTable table = worlds.get(world.getUID());
+        if (table == null) return null;
+
+        MiningTask head;
+        LongObjectMap<MiningTask> stripe = table.stripe(key);
+        synchronized (stripe) {
+            head = stripe.remove(key);
+        }
+
+        // Not under the stripe lock so we never hold both locks
+        for (MiningTask task = head; task != null; task = task.getNextAtPosition()) {
+            unindexPlayer(task);
+        }
+
+        return head;
+    }
+
+    /**
+     * Remove a single task from the registry
+     *
+     * @param task The task to remove
+     */
+    public void remove(MiningTask task) {
+        unlink(task);
+        unindexPlayer(task);
+    }
+
+    /**
+     * Remove every task of a player
+     *
+     * @param uuid The player to remove tasks for
+     * @return The tasks that were removed
+     */
+    public List<MiningTask> removePlayer(UUID uuid) {
+        List<MiningTask> list = players.remove(uuid);
+        if (list == null) return List.of();
+
+        List<MiningTask> removed;
+        synchronized (list) {
+            removed = new ArrayList<>(list);
+        }
+
+        for (MiningTask task : removed) {
+            unlink(task);
+        }
+
+        return removed;
+    }
+
+    /**
+     * @return Amount of player tasks in the registry, running or paused
+     */
+    public int size() {
+        int size = 0;
+        for (List<MiningTask> list : players.values()) {
+            synchronized (list) {
+                size += list.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Call the consumer with every task, running or paused.
+     * Called outside of any lock so the consumer can touch the registry
+     */
+    public void forEach(Consumer<MiningTask> consumer) {
+        List<MiningTask> all = new ArrayList<>();
+        for (WorldTable table : worlds.values()) {
+            for (LongObjectMap<MiningTask> stripe : table.stripes) {
+                synchronized (stripe) {
+                    stripe.forEachValue(head -> {
+                        for (MiningTask task = head; task != null; task = task.getNextAtPosition()) {
+                            all.add(task);
+                        }
+                    });
+                }
+            }
+        }
+
+        all.forEach(consumer);
+    }
+
+    /**
+     * Remove all tasks
+     */
+    public void clear() {
+        worlds.clear();
+        players.clear();
+    }
+
+    /**
+     * Remove a task from it's position chain
+     */
+    private void unlink(MiningTask task) {
+        WorldTable table = worlds.get(task.getWorld().getUID());
+        if (table == null) return;
+
+        LongObjectMap<MiningTask> stripe = table.stripe(task.getKey());
+        synchronized (stripe) {
+            MiningTask head = stripe.get(task.getKey());
+            if (head == task) {
+                stripe.put(task.getKey(), task.getNextAtPosition());
+                return;
+            }
+
+            for (MiningTask previous = head; previous != null; previous = previous.getNextAtPosition()) {
+                if (previous.getNextAtPosition() == task) {
+                    previous.setNextAtPosition(task.getNextAtPosition());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a task from it's player's index
+     */
+    private void unindexPlayer(MiningTask task) {
+        if (task.getPlayer() == null) return;
+
+        List<MiningTask> list = players.get(task.getPlayer().getUniqueId());
+        if (list == null) return;
+
+        synchronized (list) {
+            list.remove(task);
+            if (list.isEmpty()) players.remove(task.getPlayer().getUniqueId(), list);
+        }
+    }
+
+    /**
+     * Positions of tasks in a world, split into stripes
+     * so different positions don't contend on one lock
+     */
+    private static final class WorldTable {
+
+        @SuppressWarnings("unchecked")
+        private final LongObjectMap<MiningTask>[] stripes = new LongObjectMap[STRIPES];
+
+        private WorldTable() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LongObjectMap<>();
+            }
+        }
+
+        private LongObjectMap<MiningTask> stripe(long key) {
+            return stripes[(BlockKey.hash(key) >>> 16) & (STRIPES - 1)];
+        }
+    }
+}
@@ -1,26 +1,30 @@
 package com.illuzionzstudios.custommining.task;
 
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.GovernorController;
 import com.illuzionzstudios.custommining.controller.MiningController;
-import com.illuzionzstudios.custommining.settings.Settings;
-import com.illuzionzstudios.mist.scheduler.MinecraftScheduler;
+import com.illuzionzstudios.custommining.controller.StatsController;
+import com.illuzionzstudios.custommining.player.MiningSession;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import com.illuzionzstudios.custommining.util.BlockKey;
 import lombok.Getter;
 import lombok.Setter;
-import org.bukkit.Bukkit;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.function.BiConsumer;
 
 /**
  * A custom task handling the breaking of blocks. For as long
  * as this is enabled it plays breaking animations for a block
  * over a set amount of time then calls our {@link MiningController#breakBlock(Player, Block)}
+ * <p>
+ * Tasks are advanced by the {@link MiningEngine}
  */
 @Getter
-public class MiningTask implements Runnable {
+public class MiningTask {
 
     /**
      * Player breaking the block. If player is null this task
@@ -29,11 +33,38 @@ public class MiningTask implements Runnable {
     @Nullable
     private final Player player;
 
+    /**
+     * Mining session of the player, null if there is no player
+     */
+    @Nullable
+    private final MiningSession session;
+
     /**
      * The block we are currently breaking
      */
     private final Block block;
 
+    /**
+     * World the block is in
+     */
+    private final World world;
+
+    /**
+     * Packed position of the block, see {@link BlockKey}
+     */
+    private final long key;
+
+    /**
+     * Next task on the same block in the {@link MiningRegistry}
+     */
+    @Setter
+    private MiningTask nextAtPosition;
+
+    /**
+     * When the task was created, as {@link System#nanoTime()}
+     */
+    private final long createdAt = System.nanoTime();
+
     /**
      * Ticks task is alive
      */
@@ -48,6 +79,12 @@ public class MiningTask implements Runnable {
      */
     private int counter = 0;
 
+    /**
+     * The counter value at which the damage stage next
+     * changes. Until then a tick is only counting
+     */
+    private int nextStage = 0;
+
     /**
      * Elapsed ticks the task has been disabled
      */
@@ -57,24 +94,24 @@ public class MiningTask implements Runnable {
      * Last damage number used for comparing
      * to avoid resetting progress
      */
-    private int lastDamage = 0;
+    private int lastDamage = -1;
 
     /**
-     * Our task ID to identify the task (bukkit runnable)
+     * Last damage stage actually sent, can skip stages when
+     * the {@link GovernorController} shows fewer of them
      */
-    @Setter
-    private int taskID;
+    private int lastSentDamage = -1;
 
     /**
      * Internal flag if the break time changed so we can update logic
      */
-    private boolean changedBreakTime;
+    private volatile boolean changedBreakTime;
 
     /**
      * Total time to break the block (in ticks)
      * Can be set when tool etc changes
      */
-    private float breakTime;
+    private volatile float breakTime;
 
     /**
      * Percent complete of task
@@ -88,7 +125,13 @@ public class MiningTask implements Runnable {
      * If set to false, it will pause breaking
      */
     @Setter
-    private boolean enabled = true;
+    private volatile boolean enabled = true;
+
+    /**
+     * Set when the task has been stopped. The {@link MiningEngine}
+     * will drop it on the next tick
+     */
+    private volatile boolean cancelled = false;
 
     /**
      * This is the function that runs when this block breaks. By default
@@ -110,93 +153,125 @@ public class MiningTask implements Runnable {
 
     public MiningTask(@Nullable Player player, Block block, float breakTime, BiConsumer<Player, Block> onBreak) {
         this.player = player;
+        this.session = player == null ? null : MiningController.INSTANCE.getSession(player);
         this.block = block;
+        this.world = block.getWorld();
+        this.key = BlockKey.of(block);
         this.breakTime = breakTime;
         this.onBreak = onBreak;
     }
 
     /**
-     * Called every tick
+     * Called every tick by the {@link MiningEngine}
      * Where we handle breaking and more
+     *
+     * @return If the task should keep ticking
      */
-    @Override
-    public void run() {
+    public boolean tick() {
         elapsedTicks++;
         totalTicks++;
 
-        int totalSeconds = totalTicks / 20; // Total seconds passed
+        // Read once so the whole tick sees the same settings
+        MiningConfig config = MiningConfig.get();
 
         // Handle cleanup here
-        if (Settings.MINING_SAVE_PROGRESS.getBoolean()) {
-            int seconds = elapsedTicks / 20; // Seconds from ticks
-
-            if (seconds >= Settings.MINING_CLEANUP_DELAY.getInt()) {
-                MiningController.INSTANCE.cancelBreaking(block);
-                return;
+        if (config.saveProgress()) {
+            if (elapsedTicks >= config.cleanupDelayTicks()) {
+                MiningController.INSTANCE.cancelBreaking(world, key);
+                return false;
             }
         }
 
-        if (!enabled) return;
+        if (!enabled) return true;
 
         // Been enabled for over threshold
         // Urgent cleanup so it doesn't run forever
         // and lag the server
-        if (totalSeconds >= Settings.MINING_CLEANUP_THRESHOLD.getInt()) {
-            MiningController.INSTANCE.cancelBreaking(block);
-            return;
+        if (totalTicks >= config.cleanupThresholdTicks()) {
+            MiningController.INSTANCE.cancelBreaking(world, key);
+            return false;
         }
 
-        if (player != null) {
-            // If player can't trigger tasks, immediately pause the task
-            // After cleanup checks
-            if (MiningController.INSTANCE.getDisabled().contains(player.getUniqueId()))
-                return;
-        }
+        // If player can't trigger tasks, immediately pause the task
+        // After cleanup checks
+        if (session != null && !session.isDigActive())
+            return true;
 
         // Reset ticks since it was enabled
         this.elapsedTicks = 0;
 
         if (changedBreakTime) {
-            // Update counters
-            setPercent(percent);
-
             // Reset
             this.changedBreakTime = false;
+
+            // Update counters
+            setPercent(percent);
         }
 
+        int current = counter++;
+
+        // Only wake up when the stage changes or the block breaks
+        if (current < nextStage && counter < breakTime) return true;
+
         // Damage is a value 0 to 9 inclusive representing the 10 different damage textures that can be applied to a block
-        int damage = (int) getPercent() / 10;
+        int damage = (int) ((current / breakTime) * 100) / 10;
 
-        // Send the damage animation state once for each increment
-        if (damage != (counter == 0 ? -1 : lastDamage)) {
+        // Send the damage animation state once for each increment,
+        // rounded down to the stages shown under the current load
+        int step = GovernorController.INSTANCE.getStageStep();
+        int shown = damage - damage % step;
+        if (damage != lastDamage && shown != lastSentDamage) {
             // Auto gets who to send animation to based on settings
-            MiningController.INSTANCE.getHandler().sendBlockBreak(block, damage, Settings.MINING_BROADCAST_ANIMATION.getBoolean() || player == null ? new ArrayList<>(Bukkit.getOnlinePlayers()) : Collections.singletonList(player));
+            AnimationController.INSTANCE.queue(block, shown, config.broadcastAnimation() ? null : player);
+            lastSentDamage = shown;
         }
 
-        // Update last variable
+        // Update last variable and when to next wake up
         lastDamage = damage;
-        counter++;
+        nextStage = (int) Math.ceil((damage + 1) * breakTime / 10);
 
         // Reached break time
         if (getPercent() >= 100f) {
-            // Handle breaking the block
-            MinecraftScheduler.get().synchronize(() -> {
-                this.onBreak.accept(player, block);
-            });
-            // Disable so stops ticking
-            setEnabled(false);
+            // Break the block on the main thread
+            MiningEngine.INSTANCE.getBreakQueue().offer(this);
+            // Finished so stops ticking
+            return false;
         }
+
+        return true;
+    }
+
+    /**
+     * Run what happens when the block breaks. Called on the
+     * main thread by the {@link BreakQueue}
+     */
+    public void complete() {
+        StatsController.INSTANCE.getClickToBreak().recordSince(createdAt);
+        this.onBreak.accept(player, block);
+    }
+
+    /**
+     * Stop this task from ticking
+     */
+    public void cancel() {
+        this.cancelled = true;
     }
 
     /**
      * @param time Change the break time of the block
      */
     public void setBreakTime(float time) {
-        // Set changed base on if actually changed
-        this.changedBreakTime = this.breakTime != time;
+        if (this.breakTime == time) return;
 
-        // Update
+        // Progress against the old break time, as the stored percent is only
+        // updated when the stage changes. If a change is already waiting the
+        // counter hasn't been rescaled yet so keep that percent
+        if (!changedBreakTime)
+            this.percent = (counter / breakTime) * 100;
+
+        // Update, flagging last so the engine sees the new values
         this.breakTime = time;
+        this.changedBreakTime = true;
     }
 
     /**
@@ -221,7 +296,10 @@ public class MiningTask implements Runnable {
         // Get percentage of break time
         this.counter = (int) (breakTime * (percent / 100));
 
+        // Wake up next tick to resend the stage
+        this.nextStage = counter;
+
         // Update local
         getPercent();
     }
-}
\ No newline at end of file
+}
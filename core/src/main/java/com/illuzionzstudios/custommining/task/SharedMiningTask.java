@@ -0,0 +1,223 @@
+package com.illuzionzstudios.custommining.task;
+
+import com.illuzionzstudios.custommining.controller.AnimationController;
+import com.illuzionzstudios.custommining.controller.GovernorController;
+import com.illuzionzstudios.custommining.controller.MiningController;
+import com.illuzionzstudios.custommining.controller.StatsController;
+import com.illuzionzstudios.custommining.event.SharedBlockBreakEvent;
+import com.illuzionzstudios.custommining.player.MiningSession;
+import com.illuzionzstudios.custommining.settings.MiningConfig;
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link MiningTask} for a block that everyone mining it shares.
+ * <p>
+ * The block has one progress and every player digging it adds
+ * damage each tick based on their own break time, so two players with
+ * the same tool break it twice as fast. There is one animation for the
+ * block and one {@link SharedBlockBreakEvent} listing who helped.
+ * Used when shared progress is enabled in the settings
+ */
+public class SharedMiningTask extends MiningTask {
+
+    /**
+     * Everyone that has hit the block. Only added to on
+     * the main thread and read by the engine
+     */
+    private final List<Contributor> contributors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Progress of the block from 0 to 1
+     */
+    private volatile float progress;
+
+    /**
+     * Ticks since anyone was digging
+     */
+    private int idleTicks;
+
+    /**
+     * Ticks task is alive
+     */
+    private int aliveTicks;
+
+    /**
+     * Last damage stage sent
+     */
+    private int lastSentDamage = -1;
+
+    public SharedMiningTask(Block block) {
+        super(block, 1, (player, broken) -> {
+        });
+    }
+
+    /**
+     * Add a player digging this block, or update their break time if
+     * they already are
+     *
+     * @param player    The player digging
+     * @param breakTime Ticks it would take them to break it alone
+     */
+    public void join(Player player, float breakTime) {
+        for (Contributor contributor : contributors) {
+            if (contributor.player == player) {
+                contributor.breakTime = breakTime;
+                return;
+            }
+        }
+
+        contributors.add(new Contributor(player, MiningController.INSTANCE.getSession(player), breakTime));
+    }
+
+    @Override
+    public boolean tick() {
+        aliveTicks++;
+        MiningConfig config = MiningConfig.get();
+
+        // Been going for over threshold, urgent cleanup
+        if (aliveTicks >= config.cleanupThresholdTicks()) {
+            MiningController.INSTANCE.cancelBreaking(getWorld(), getKey());
+            return false;
+        }
+
+        float added = 0;
+        for (Contributor contributor : contributors) {
+            // Can't help on blocks that are unbreakable for them
+            if (contributor.breakTime < 0 || !contributor.isDigging(this)) continue;
+
+            float damage = 1 / Math.max(1, contributor.breakTime);
+            contributor.damage += damage;
+            added += damage;
+        }
+
+        if (added == 0) {
+            idleTicks++;
+
+            // Everyone stopped, forget progress straight away unless saved
+            if (!config.saveProgress() || idleTicks >= config.cleanupDelayTicks()) {
+                MiningController.INSTANCE.cancelBreaking(getWorld(), getKey());
+                return false;
+            }
+            return true;
+        }
+
+        idleTicks = 0;
+        progress += added;
+
+        // One stream of animations for everyone
+        int damage = Math.min(9, (int) (progress * 10));
+        int step = GovernorController.INSTANCE.getStageStep();
+        int shown = damage - damage % step;
+        if (shown != lastSentDamage) {
+            if (config.broadcastAnimation()) {
+                AnimationController.INSTANCE.queue(getBlock(), shown, null);
+            } else {
+                for (Contributor contributor : contributors) {
+                    AnimationController.INSTANCE.queue(getBlock(), shown, contributor.player);
+                }
+            }
+            lastSentDamage = shown;
+        }
+
+        if (progress >= 1) {
+            MiningEngine.INSTANCE.getBreakQueue().offer(this);
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void complete() {
+        StatsController.INSTANCE.getClickToBreak().recordSince(getCreatedAt());
+
+        // Work out everyone's share
+        float total = 0;
+        for (Contributor contributor : contributors) total += contributor.damage;
+
+        Map<Player, Float> contributions = new LinkedHashMap<>();
+        Player top = null;
+        float topDamage = -1;
+        for (Contributor contributor : contributors) {
+            contributions.put(contributor.player, total == 0 ? 0 : contributor.damage / total);
+
+            if (contributor.player.isOnline() && contributor.damage > topDamage) {
+                top = contributor.player;
+                topDamage = contributor.damage;
+            }
+        }
+
+        SharedBlockBreakEvent event = new SharedBlockBreakEvent(getBlock(), contributions, top);
+        Bukkit.getPluginManager().callEvent(event);
+
+        if (event.isCancelled() || event.getBreaker() == null || !event.getBreaker().isOnline()) {
+            MiningController.INSTANCE.cancelBreaking(getWorld(), getKey());
+            return;
+        }
+
+        MiningController.INSTANCE.breakBlock(event.getBreaker(), getBlock());
+    }
+
+    @Override
+    public float getPercent() {
+        return progress * 100;
+    }
+
+    @Override
+    public void setPercent(float percent) {
+        this.progress = percent / 100;
+        this.lastSentDamage = -1;
+    }
+
+    @Override
+    public void setBreakTime(float time) {
+        // Each contributor has their own
+    }
+
+    /**
+     * @return Amount of players that have hit the block
+     */
+    public int getContributorCount() {
+        return contributors.size();
+    }
+
+    /**
+     * A player helping mine the block
+     */
+    private static final class Contributor {
+
+        private final Player player;
+        private final MiningSession session;
+
+        /**
+         * Ticks it would take them alone, updated when they click again
+         */
+        private volatile float breakTime;
+
+        /**
+         * Damage they've done, only touched by the engine
+         */
+        private float damage;
+
+        private Contributor(Player player, MiningSession session, float breakTime) {
+            this.player = player;
+            this.session = session;
+            this.breakTime = breakTime;
+        }
+
+        /**
+         * @return If they're currently digging the block
+         */
+        private boolean isDigging(SharedMiningTask task) {
+            return player.isOnline() && session.isDigActive()
+                    && session.getTarget() == task.getKey() && session.getTargetWorld() == task.getWorld();
+        }
+    }
+}
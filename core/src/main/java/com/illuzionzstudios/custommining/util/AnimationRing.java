@@ -0,0 +1,143 @@
+package com.illuzionzstudios.custommining.util;
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue of damage updates with many producers and one consumer.
+ * <p>
+ * Updates are kept in preallocated parallel arrays so queueing one doesn't
+ * allocate. Producers claim a slot by moving the tail, fill it in and then
+ * publish it by setting the slot's sequence, which the consumer waits for
+ * before reading. A slot's sequence also tells producers when the consumer
+ * is done with it, so a full ring is detected without locking
+ */
+public class AnimationRing {
+
+    /**
+     * Receives each update drained
+     */
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(Block block, int damage, Player target, long order);
+    }
+
+    private final int mask;
+
+    /**
+     * Position each slot is ready for. Equal to the position when free to
+     * write, one past it once written
+     */
+    private final AtomicLongArray sequences;
+
+    private final Block[] blocks;
+    private final Player[] targets;
+    private final int[] damages;
+    private final long[] orders;
+
+    /**
+     * Next position to write, claimed by producers
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next position to read, only touched by the consumer
+     */
+    private long head;
+
+    /**
+     * @param capacity Amount of updates held, rounded up to a power of two
+     */
+    public AnimationRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.blocks = new Block[size];
+        this.targets = new Player[size];
+        this.damages = new int[size];
+        this.orders = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Queue an update. Safe from any thread
+     *
+     * @param order Number given to the update by the caller, handed back when drained
+     * @return If it was queued, false if the ring is full
+     */
+    public boolean offer(Block block, int damage, Player target, long order) {
+        long position = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) position & mask;
+            long available = sequences.get(slot) - position;
+
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (available < 0) {
+                // Slot still holds an update from a lap ago
+                return false;
+            } else {
+                // Another producer took it
+                position = tail.get();
+            }
+        }
+
+        blocks[slot] = block;
+        targets[slot] = target;
+        damages[slot] = damage;
+        orders[slot] = order;
+        sequences.set(slot, position + 1);
+        return true;
+    }
+
+    /**
+     * Hand every published update to the consumer. Only called from one thread
+     *
+     * @return Amount of updates drained
+     */
+    public int drain(Consumer consumer) {
+        int drained = 0;
+        while (true) {
+            int slot = (int) head & mask;
+            // Not published yet, or empty
+            if (sequences.get(slot) != head + 1) return drained;
+
+            Block block = blocks[slot];
+            Player target = targets[slot];
+            int damage = damages[slot];
+            long order = orders[slot];
+            blocks[slot] = null;
+            targets[slot] = null;
+
+            // Free for the producer one lap ahead
+            sequences.set(slot, head + mask + 1);
+            head++;
+            drained++;
+
+            consumer.accept(block, damage, target, order);
+        }
+    }
+
+    /**
+     * @return If nothing is waiting to be drained
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    /**
+     * Drop everything queued. Only called from the consumer thread
+     */
+    public void clear() {
+        drain((block, damage, target, order) -> {
+        });
+    }
+}
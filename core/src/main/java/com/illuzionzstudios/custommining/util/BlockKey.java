@@ -0,0 +1,60 @@
+package com.illuzionzstudios.custommining.util;
+
+import org.bukkit.block.Block;
+
+/**
+ * Packs block coordinates into a single primitive long so positions
+ * can be used as keys without creating {@link org.bukkit.Location} objects.
+ * <p>
+ * Layout is the same as vanilla: 26 bits x, 26 bits z, 12 bits y
+ */
+public final class BlockKey {
+
+    private BlockKey() {
+    }
+
+    /**
+     * @return Packed key of the block's position
+     */
+    public static long of(Block block) {
+        return of(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * @return Packed key of the coordinates
+     */
+    public static long of(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    /**
+     * @return The x coordinate of a packed key
+     */
+    public static int getX(long key) {
+        return (int) (key >> 38);
+    }
+
+    /**
+     * @return The y coordinate of a packed key
+     */
+    public static int getY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    /**
+     * @return The z coordinate of a packed key
+     */
+    public static int getZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    /**
+     * Spread the bits of a key for use in hash tables
+     */
+    public static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
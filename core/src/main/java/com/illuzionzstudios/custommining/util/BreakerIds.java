@@ -0,0 +1,59 @@
+package com.illuzionzstudios.custommining.util;
+
+import java.util.Arrays;
+
+/**
+ * Hands out breaker ids for block break animations.
+ * <p>
+ * The client shows one damage texture per breaker id, so every block
+ * being animated needs it's own. Ids are negative so they never clash
+ * with real entities, and are recycled once a block's animation ends
+ * so the range never runs out.
+ * <p>
+ * Not thread safe, callers handle their own locking
+ */
+public class BreakerIds {
+
+    /**
+     * Next id that has never been used
+     */
+    private int next = -1;
+
+    /**
+     * Ids that have been released
+     */
+    private int[] free = new int[64];
+
+    private int freeCount;
+
+    /**
+     * @return An id not used by any other block
+     */
+    public int allocate() {
+        if (freeCount > 0) return free[--freeCount];
+        return next--;
+    }
+
+    /**
+     * Give back an id so it can be used again
+     */
+    public void release(int id) {
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount << 1);
+        free[freeCount++] = id;
+    }
+
+    /**
+     * @return Amount of ids currently in use
+     */
+    public int inUse() {
+        return -1 - next - freeCount;
+    }
+
+    /**
+     * Forget every id handed out
+     */
+    public void clear() {
+        next = -1;
+        freeCount = 0;
+    }
+}
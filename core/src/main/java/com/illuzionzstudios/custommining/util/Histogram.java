@@ -0,0 +1,130 @@
+package com.illuzionzstudios.custommining.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations in nanoseconds. Safe to record from any thread.
+ * <p>
+ * Values are counted in log scale buckets, each power of two split into
+ * four, so percentiles are accurate to within 25% while recording is a
+ * single atomic increment. Values under 16 get exact buckets
+ */
+public final class Histogram {
+
+    /**
+     * Values with their own exact bucket
+     */
+    private static final int LINEAR = 16;
+
+    /**
+     * Sub buckets per power of two, as bits
+     */
+    private static final int SUB_BITS = 2;
+
+    private static final int BUCKETS = LINEAR + (63 - 4) * (1 << SUB_BITS);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value
+     *
+     * @param nanos Duration in nanoseconds, negatives count as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        buckets.incrementAndGet(index(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Record the time since a {@link System#nanoTime()}
+     *
+     * @param start When the timed section started
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * @return Amount of values recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return Sum of all values recorded
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return Largest value recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return Average value, 0 if nothing recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotal() / count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return Upper bound of the bucket the percentile falls in, 0 if nothing recorded
+     */
+    public long getPercentile(double percentile) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += buckets.get(i);
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Forget everything recorded
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR) return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+        return LINEAR + ((exponent - 4) << SUB_BITS) + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR) return index;
+
+        int exponent = ((index - LINEAR) >> SUB_BITS) + 4;
+        int sub = (index - LINEAR) & ((1 << SUB_BITS) - 1);
+        long lower = (long) ((1 << SUB_BITS) + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,172 @@
+package com.illuzionzstudios.custommining.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive long keys to primitive long values.
+ * Nothing is boxed and entries are only a couple of array slots.
+ * <p>
+ * Not thread safe, callers handle their own locking
+ */
+public class LongLongMap {
+
+    /**
+     * Keys of each slot
+     */
+    private long[] keys;
+
+    /**
+     * Values of each slot
+     */
+    private long[] values;
+
+    /**
+     * If each slot holds an entry
+     */
+    private boolean[] used;
+
+    /**
+     * Amount of entries in the map
+     */
+    private int size;
+
+    public LongLongMap() {
+        this(16);
+    }
+
+    public LongLongMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.used = new boolean[capacity];
+    }
+
+    /**
+     * @return If the key is mapped
+     */
+    public boolean containsKey(long key) {
+        return slot(key) >= 0;
+    }
+
+    /**
+     * @param missing Value to return if the key isn't mapped
+     * @return Value mapped to the key, or missing if none
+     */
+    public long get(long key, long missing) {
+        int i = slot(key);
+        return i < 0 ? missing : values[i];
+    }
+
+    /**
+     * Map a key to a value
+     */
+    public void put(long key, long value) {
+        int mask = keys.length - 1;
+        int i = BlockKey.hash(key) & mask;
+        for (; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        used[i] = true;
+
+        // Keep load under half
+        if (++size * 2 > keys.length) resize(keys.length << 1);
+    }
+
+    /**
+     * Remove a key from the map
+     *
+     * @param missing Value to return if the key isn't mapped
+     * @return The value that was mapped, or missing if none
+     */
+    public long remove(long key, long missing) {
+        int i = slot(key);
+        if (i < 0) return missing;
+
+        long previous = values[i];
+        used[i] = false;
+        size--;
+
+        // Shift back following entries so probing still finds them
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int ideal = BlockKey.hash(keys[j]) & mask;
+            if (((j - ideal) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                used[i] = true;
+                used[j] = false;
+                i = j;
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * Call the consumer with every entry
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * @return Amount of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return If there are no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        for (int i = BlockKey.hash(key) & mask; used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.used = new boolean[capacity];
+        this.size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    /**
+     * Receives entries of the map
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
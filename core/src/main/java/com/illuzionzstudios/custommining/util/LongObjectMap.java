@@ -0,0 +1,175 @@
+package com.illuzionzstudios.custommining.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open addressing hash map from primitive long keys to objects.
+ * Lookups and updates don't box keys or allocate entries.
+ * <p>
+ * Not thread safe, callers handle their own locking
+ *
+ * @param <V> Type of values stored
+ */
+public class LongObjectMap<V> {
+
+    /**
+     * Keys of each slot
+     */
+    private long[] keys;
+
+    /**
+     * Values of each slot, a null value means the slot is free
+     */
+    private Object[] values;
+
+    /**
+     * Amount of entries in the map
+     */
+    private int size;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * @return Value mapped to the key, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = BlockKey.hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) return (V) values[i];
+        }
+        return null;
+    }
+
+    /**
+     * Map a key to a value
+     *
+     * @return The previous value mapped, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) return remove(key);
+
+        int mask = keys.length - 1;
+        int i = BlockKey.hash(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+
+        keys[i] = key;
+        values[i] = value;
+
+        // Keep load under half
+        if (++size * 2 > keys.length) resize(keys.length << 1);
+        return null;
+    }
+
+    /**
+     * Remove a key from the map
+     *
+     * @return The value that was mapped, or null if none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int i = BlockKey.hash(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) break;
+        }
+        if (values[i] == null) return null;
+
+        V previous = (V) values[i];
+        values[i] = null;
+        size--;
+
+        // Shift back following entries so probing still finds them
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int ideal = BlockKey.hash(keys[j]) & mask;
+            if (((j - ideal) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = null;
+                i = j;
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * Call the consumer with every value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) consumer.accept((V) values[i]);
+        }
+    }
+
+    /**
+     * Call the consumer with every key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachKey(EntryConsumer<V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) consumer.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    /**
+     * @return Amount of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return If there are no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Receives entries of the map
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) put(oldKeys[i], (V) oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.illuzionzstudios.custommining;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.bukkit.entity.Player;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Handler added to a player's connection that hands dig packets to a
+ * {@link DigListener} as they're read. The packet itself differs per
+ * version so reading it is left to a {@link DigReader}
+ */
+public final class DigInterceptor extends ChannelInboundHandlerAdapter {
+
+    /**
+     * Name of our dig handler in connection pipelines
+     */
+    private static final String NAME = "custommining_dig";
+
+    /**
+     * Reads a version's dig packet
+     */
+    @FunctionalInterface
+    public interface DigReader {
+
+        /**
+         * Pass a packet to the listener if it's a start, abort or stop dig
+         *
+         * @param packet   Any packet read from the connection
+         * @param player   The player the connection belongs to
+         * @param listener Listener to call
+         */
+        void read(Object packet, Player player, DigListener listener);
+    }
+
+    private final Player player;
+
+    private final DigListener listener;
+
+    private final DigReader reader;
+
+    private DigInterceptor(Player player, DigListener listener, DigReader reader) {
+        this.player = player;
+        this.listener = listener;
+        this.reader = reader;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        reader.read(msg, player, listener);
+        super.channelRead(ctx, msg);
+    }
+
+    /**
+     * Add an interceptor to a connection if it doesn't have one
+     *
+     * @return If it was added, false if the connection isn't usable
+     */
+    public static boolean inject(Channel channel, Player player, DigListener listener, DigReader reader) {
+        if (channel.pipeline().get(NAME) != null) return true;
+
+        try {
+            // Before the server's handler so we see digs first
+            channel.pipeline().addBefore("packet_handler", NAME, new DigInterceptor(player, listener, reader));
+            return true;
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            // Connection closed or pipeline isn't what we expect
+            return false;
+        }
+    }
+
+    /**
+     * Remove the interceptor from a connection if it has one
+     */
+    public static void uninject(Channel channel) {
+        channel.eventLoop().execute(() -> {
+            if (channel.pipeline().get(NAME) != null) channel.pipeline().remove(NAME);
+        });
+    }
+}
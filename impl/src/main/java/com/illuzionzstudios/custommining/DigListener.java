@@ -0,0 +1,38 @@
+package com.illuzionzstudios.custommining;
+
+import org.bukkit.entity.Player;
+
+/**
+ * Receives dig packets read straight from a player's connection
+ * by {@link MiningHandler#injectDigInterceptor}. Called from the
+ * network thread so must be safe from any thread
+ */
+@FunctionalInterface
+public interface DigListener {
+
+    /**
+     * Player started digging a block
+     */
+    int START = 0;
+
+    /**
+     * Player stopped digging before the block broke
+     */
+    int ABORT = 1;
+
+    /**
+     * Player finished digging a block
+     */
+    int STOP = 2;
+
+    /**
+     * Called for each dig packet received
+     *
+     * @param player The player digging
+     * @param type   Type of dig, one of {@link #START}, {@link #ABORT} or {@link #STOP}
+     * @param x      X of the block
+     * @param y      Y of the block
+     * @param z      Z of the block
+     */
+    void onDig(Player player, int type, int x, int y, int z);
+}
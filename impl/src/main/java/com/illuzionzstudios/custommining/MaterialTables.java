@@ -0,0 +1,185 @@
+package com.illuzionzstudios.custommining;
+
+import org.bukkit.Material;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Flat primitive tables of block hardness and tool speeds, built once
+ * from NMS at startup so lookups are just array reads.
+ * <p>
+ * Hardness is indexed by block material ordinal. Destroy speed and
+ * if a tool can harvest a block are indexed by (tool row, block ordinal).
+ * Items that behave the same as an empty hand share the first row so the
+ * table only has rows for actual tools.
+ */
+public class MaterialTables {
+
+    /**
+     * Hardness of each block material, -1 if not a block
+     */
+    private final float[] hardness;
+
+    /**
+     * Row in the tool tables for each item material. 0 is
+     * the row for items that aren't tools
+     */
+    private final int[] toolRow;
+
+    /**
+     * Destroy speed of a tool on a block
+     */
+    private final float[] destroySpeed;
+
+    /**
+     * If a tool can harvest a block
+     */
+    private final boolean[] canHarvest;
+
+    /**
+     * Amount of materials, the stride of a tool row
+     */
+    private final int materials;
+
+    /**
+     * Amount of tool rows built
+     */
+    private final int tools;
+
+    private MaterialTables(float[] hardness, int[] toolRow, float[] destroySpeed, boolean[] canHarvest, int tools) {
+        this.hardness = hardness;
+        this.toolRow = toolRow;
+        this.destroySpeed = destroySpeed;
+        this.canHarvest = canHarvest;
+        this.materials = hardness.length;
+        this.tools = tools;
+    }
+
+    /**
+     * @param block Material of the block
+     * @return The default hardness of the block
+     */
+    public float getHardness(Material block) {
+        return hardness[block.ordinal()];
+    }
+
+    /**
+     * @param item  Material of the item used
+     * @param block Material of the block
+     * @return Base destroy speed of the item on the block
+     */
+    public float getDestroySpeed(Material item, Material block) {
+        return destroySpeed[toolRow[item.ordinal()] * materials + block.ordinal()];
+    }
+
+    /**
+     * @param item  Material of the item used
+     * @param block Material of the block
+     * @return If the item is the right tool for the block
+     */
+    public boolean canHarvest(Material item, Material block) {
+        return canHarvest[toolRow[item.ordinal()] * materials + block.ordinal()];
+    }
+
+    /**
+     * @return Amount of tool rows, including the empty hand row
+     */
+    public int getToolCount() {
+        return tools;
+    }
+
+    /**
+     * Build the tables. Rows are worked out in parallel
+     * so lookups passed in must be thread safe
+     *
+     * @param isBlock   If a material is a block we should work out hardness for
+     * @param isItem    If a material is an item we should work out speeds for
+     * @param hand      Material used for the row of non tool items
+     * @param hardness  Gets the hardness of a block
+     * @param speed     Gets the destroy speed of an item on a block
+     * @param harvest   Gets if an item can harvest a block
+     */
+    public static MaterialTables build(Predicate<Material> isBlock, Predicate<Material> isItem, Material hand,
+                                       HardnessLookup hardness, SpeedLookup speed, HarvestLookup harvest) {
+        Material[] values = Material.values();
+        int materials = values.length;
+
+        // Hardness of every block
+        float[] hardnessTable = new float[materials];
+        IntStream.range(0, materials).parallel().forEach(i -> {
+            Material material = values[i];
+            hardnessTable[i] = isBlock.test(material) ? hardness.get(material) : -1f;
+        });
+
+        // Work out a full row for every item
+        float[][] speedRows = new float[materials][];
+        boolean[][] harvestRows = new boolean[materials][];
+        IntStream.range(0, materials).parallel().forEach(i -> {
+            Material item = values[i];
+            if (item != hand && !isItem.test(item)) return;
+
+            float[] speedRow = new float[materials];
+            boolean[] harvestRow = new boolean[materials];
+            for (int j = 0; j < materials; j++) {
+                if (!isBlock.test(values[j])) continue;
+
+                speedRow[j] = speed.get(item, values[j]);
+                harvestRow[j] = harvest.get(item, values[j]);
+            }
+
+            speedRows[i] = speedRow;
+            harvestRows[i] = harvestRow;
+        });
+
+        // Only keep rows that differ from an empty hand
+        float[] handSpeed = speedRows[hand.ordinal()];
+        boolean[] handHarvest = harvestRows[hand.ordinal()];
+        int[] toolRow = new int[materials];
+        int tools = 1;
+        for (int i = 0; i < materials; i++) {
+            if (speedRows[i] == null || i == hand.ordinal()) continue;
+            if (Arrays.equals(speedRows[i], handSpeed) && Arrays.equals(harvestRows[i], handHarvest)) continue;
+
+            toolRow[i] = tools++;
+        }
+
+        float[] destroySpeed = new float[tools * materials];
+        boolean[] canHarvest = new boolean[tools * materials];
+        System.arraycopy(handSpeed, 0, destroySpeed, 0, materials);
+        System.arraycopy(handHarvest, 0, canHarvest, 0, materials);
+        for (int i = 0; i < materials; i++) {
+            if (toolRow[i] == 0) continue;
+
+            System.arraycopy(speedRows[i], 0, destroySpeed, toolRow[i] * materials, materials);
+            System.arraycopy(harvestRows[i], 0, canHarvest, toolRow[i] * materials, materials);
+        }
+
+        return new MaterialTables(hardnessTable, toolRow, destroySpeed, canHarvest, tools);
+    }
+
+    /**
+     * Gets the default hardness of a block material
+     */
+    @FunctionalInterface
+    public interface HardnessLookup {
+        float get(Material block);
+    }
+
+    /**
+     * Gets the destroy speed of an item on a block
+     */
+    @FunctionalInterface
+    public interface SpeedLookup {
+        float get(Material item, Material block);
+    }
+
+    /**
+     * Gets if an item can harvest a block
+     */
+    @FunctionalInterface
+    public interface HarvestLookup {
+        boolean get(Material item, Material block);
+    }
+}
@@ -1,5 +1,6 @@
 package com.illuzionzstudios.custommining;
 
+import io.netty.channel.Channel;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
@@ -12,6 +13,12 @@ import java.util.List;
  */
 public interface MiningHandler {
 
+    /**
+     * Build the {@link MaterialTables} used for hardness and tool
+     * lookups. Called once on startup before any other method
+     */
+    void loadTables();
+
     /**
      * Update the damage texture being displayed on a block
      *
@@ -30,6 +37,95 @@ public interface MiningHandler {
      */
     void sendBlockBreak(org.bukkit.block.Block block, int damage, List<Player> players);
 
+    /**
+     * Create a damage texture update packet. The packet can be
+     * written to any number of players and kept to write again
+     *
+     * @param breakerId Id of who is breaking the block, the client shows one texture per id
+     * @param block     The block to send breaking to
+     * @param damage    A param used for which break cycle to display
+     * @return The version's packet
+     */
+    Object createBlockBreak(int breakerId, org.bukkit.block.Block block, int damage);
+
+    /**
+     * Get the Netty channel of a player's connection
+     *
+     * @param player Player to get the connection of
+     * @return The channel packets are written to
+     */
+    Channel getChannel(Player player);
+
+    /**
+     * Write a packet to a player's connection without flushing it.
+     * Used to batch many updates together before a single {@link #flush(Player)}
+     * <p>
+     * This skips the server's packet queue, so it's only used for packets
+     * that are valid whenever the player is in game. Online players are always
+     * in the play protocol on these versions, and a closed connection is skipped.
+     * Writes from another thread are handed to the channel's event loop, so
+     * they keep their order between each other but may land before or after
+     * packets the server sends meanwhile. Break animations carry their whole
+     * stage, so that doesn't matter for them
+     *
+     * @param player Player to write to
+     * @param packet Packet from {@link #createBlockBreak}
+     */
+    default void writePacket(Player player, Object packet) {
+        Channel channel = getChannel(player);
+        if (channel == null || !channel.isActive()) return;
+
+        channel.write(packet);
+    }
+
+    /**
+     * Flush everything written to a player's connection
+     *
+     * @param player Player to flush
+     */
+    default void flush(Player player) {
+        Channel channel = getChannel(player);
+        if (channel == null || !channel.isActive()) return;
+
+        channel.flush();
+    }
+
+    /**
+     * Get what reads this version's dig packets for a {@link DigInterceptor}
+     *
+     * @return The reader, or null if digs can't be read from the connection
+     */
+    default DigInterceptor.DigReader getDigReader() {
+        return null;
+    }
+
+    /**
+     * Add a handler to a player's connection that reads dig packets
+     * as they arrive and hands them to a listener. Avoids the cost of
+     * packet libraries wrapping every packet
+     *
+     * @param player   Player to intercept digs from
+     * @param listener Called with every start, abort and stop dig
+     * @return If it was added, otherwise digs need to be listened to another way
+     */
+    default boolean injectDigInterceptor(Player player, DigListener listener) {
+        DigInterceptor.DigReader reader = getDigReader();
+        if (reader == null) return false;
+
+        return DigInterceptor.inject(getChannel(player), player, listener, reader);
+    }
+
+    /**
+     * Remove the dig handler from a player's connection if it was added
+     *
+     * @param player Player to stop intercepting
+     */
+    default void uninjectDigInterceptor(Player player) {
+        if (getDigReader() == null) return;
+
+        DigInterceptor.uninject(getChannel(player));
+    }
+
     /**
      * Send client side mining fatigue to the player
      * This stops any breaking animation so we
@@ -40,7 +136,8 @@ public interface MiningHandler {
     void cancelClientBreaking(Player player);
 
     /**
-     * Get the default hardness of a block
+     * Get the default hardness of a block. Read from
+     * the precomputed {@link MaterialTables}
      *
      * @param block The block to check
      */
@@ -82,13 +179,28 @@ public interface MiningHandler {
      *
      * @param block Block to play effects for
      */
-    void playBreakEffect(org.bukkit.block.Block block);
+    default void playBreakEffect(org.bukkit.block.Block block) {
+        playBreakEffect(block, 50);
+    }
+
+    /**
+     * Play the breaking effect for a block with
+     * a set amount of particles
+     *
+     * @param block     Block to play effects for
+     * @param particles Amount of particles to spawn, 0 for only the sound
+     */
+    void playBreakEffect(org.bukkit.block.Block block, int particles);
 
     /**
-     * Used for a custom id based off block
+     * Used for a custom id based off block for the {@link #sendBlockBreak} methods.
+     * Mixes the full position into a negative id so it can't clash with a real
+     * entity. Animations from mining use recycled ids that never collide instead
      */
     default int getBlockEntityId(org.bukkit.block.Block block) {
-        return ((block.getX() & 0xFFF) << 20 | (block.getZ() & 0xFFF) << 8) | (block.getY() & 0xFF);
+        long hash = block.getX() * 0x9E3779B97F4A7C15L ^ block.getZ() * 0xC2B2AE3D27D4EB4FL ^ block.getY() * 0x165667B19E3779F9L;
+        hash ^= hash >>> 32;
+        return (int) hash | Integer.MIN_VALUE;
     }
 
 }